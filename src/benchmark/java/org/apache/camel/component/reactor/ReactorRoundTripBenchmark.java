@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Processor;
+import org.apache.camel.Producer;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.Environment;
+import reactor.event.dispatch.SynchronousDispatcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ReactorProducer} to {@link ReactorConsumer} round trip, InOnly and InOut,
+ * for every {@link SelectorType} reachable from an URI.
+ * <p>
+ * The component runs on a {@link SynchronousDispatcher} so the whole path, reply included, is
+ * executed on the benchmark thread and the figures measure the component rather than the hand-off
+ * to a dispatcher thread. Run with {@code mvn -Pbenchmark test-compile exec:exec}.
+ *
+ * @author mmcalabro
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ReactorRoundTripBenchmark {
+
+  private static final String BODY = "PING";
+  private static final String REPLY = "PONG";
+
+  @Param({"object", "uri", "regex", "type"})
+  public SelectorType selectorType;
+
+  /**
+   * {@code none} to send the message only, otherwise the {@link TransferMode} of the exchange sent
+   * with {@code transferExchange}: the mode does not apply to the message alone, which would only
+   * be measured twice.
+   */
+  @Param({"none", "serialized", "snapshot"})
+  public String transfer;
+
+  @Param({"true", "false"})
+  public boolean alwaysCopyMessage;
+
+  private CamelContext context;
+  private ReactorEndpoint producerEndpoint;
+  private Producer producer;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    context = new DefaultCamelContext();
+    context.disableJMX();
+    context.addComponent("reactor", new ReactorComponent(new Environment(),
+        new SynchronousDispatcher()));
+
+    String producerUri;
+    String consumerUri;
+    switch (selectorType) {
+      case uri:
+        producerUri = "reactor:uri:/bench/in";
+        consumerUri = "reactor:uri:/bench/{target}";
+        break;
+      case regex:
+        producerUri = "reactor:uri:/bench/in";
+        consumerUri = "reactor:regex:/bench/.*";
+        break;
+      case type:
+        producerUri = "reactor:type:java.lang.String";
+        consumerUri = producerUri;
+        break;
+      default:
+        producerUri = "reactor:bench.in";
+        consumerUri = producerUri;
+    }
+
+    producerEndpoint = configure(context.getEndpoint(producerUri, ReactorEndpoint.class));
+    final ReactorEndpoint consumerEndpoint =
+        configure(context.getEndpoint(consumerUri, ReactorEndpoint.class));
+    context.addRoutes(new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(consumerEndpoint).process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            if (exchange.getPattern().isOutCapable()) {
+              exchange.getOut().setBody(REPLY);
+            }
+          }
+        });
+      }
+    });
+    context.start();
+
+    producer = producerEndpoint.createProducer();
+    producer.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    producer.stop();
+    context.stop();
+  }
+
+  @Benchmark
+  public Exchange inOnly() throws Exception {
+    return send(ExchangePattern.InOnly);
+  }
+
+  @Benchmark
+  public Exchange inOut() throws Exception {
+    Exchange exchange = send(ExchangePattern.InOut);
+    if (!exchange.hasOut()) {
+      throw new IllegalStateException("No reply received for " + exchange);
+    }
+    return exchange;
+  }
+
+  private Exchange send(ExchangePattern pattern) throws Exception {
+    Exchange exchange = producerEndpoint.createExchange(pattern);
+    exchange.getIn().setBody(BODY);
+    exchange.getIn().setHeader("benchmark", selectorType.name());
+    producer.process(exchange);
+    return exchange;
+  }
+
+  private ReactorEndpoint configure(ReactorEndpoint endpoint) {
+    if (!"none".equals(transfer)) {
+      endpoint.getConfiguration().setTransferExchange(true);
+      endpoint.getConfiguration().setTransferMode(TransferMode.valueOf(transfer));
+    }
+    endpoint.getConfiguration().setAlwaysCopyMessage(alwaysCopyMessage);
+    return endpoint;
+  }
+}
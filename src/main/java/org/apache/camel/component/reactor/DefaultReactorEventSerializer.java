@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.util.IOHelper;
+import reactor.event.Event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serializes the data and the headers of events with Java serialization: both must be
+ * {@link java.io.Serializable}. The reply-to of events is not kept.
+ *
+ * @author mmcalabro
+ */
+public class DefaultReactorEventSerializer implements ReactorEventSerializer {
+
+  @Override
+  public byte[] serialize(Event<?> event) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    try {
+      out.writeObject(new HashMap<>(event.getHeaders().asMap()));
+      out.writeObject(event.getData());
+    } finally {
+      IOHelper.close(out);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Event<?> deserialize(byte[] bytes) throws IOException {
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+    try {
+      Map<String, Object> headers = (Map<String, Object>) in.readObject();
+      return new Event<Object>(new Event.Headers(headers), in.readObject());
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Cannot read event: " + e.getMessage(), e);
+    } finally {
+      IOHelper.close(in);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.HdrHistogram.AtomicHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link ReactorMetrics} of endpoints with {@code metrics=true}: counters and
+ * {@link AtomicHistogram}s of the round-trip and processing times, both lock free and allocation
+ * free when recording. Times are tracked up to 10 minutes with 2 significant digits, and read
+ * through JMX on the {@link ReactorEndpoint}.
+ *
+ * @author mmcalabro
+ */
+public class DefaultReactorMetrics implements ReactorMetrics {
+
+  private static final long HIGHEST_TRACKABLE = TimeUnit.MINUTES.toNanos(10);
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final AtomicLong published = new AtomicLong();
+  private final AtomicLong dispatched = new AtomicLong();
+  private final AtomicLong consumed = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+  private final AtomicHistogram roundTrip = new AtomicHistogram(1, HIGHEST_TRACKABLE, 2);
+  private final AtomicHistogram processing = new AtomicHistogram(1, HIGHEST_TRACKABLE, 2);
+
+  @Override
+  public void published(int events) {
+    published.addAndGet(events);
+  }
+
+  @Override
+  public void dispatched(int events) {
+    dispatched.addAndGet(events);
+  }
+
+  @Override
+  public void consumed(int events) {
+    consumed.addAndGet(events);
+  }
+
+  @Override
+  public void processed(long nanos) {
+    record(processing, nanos);
+  }
+
+  @Override
+  public void replied(long nanos) {
+    record(roundTrip, nanos);
+  }
+
+  @Override
+  public void timedOut() {
+    timeouts.incrementAndGet();
+  }
+
+  public long getPublishedCount() {
+    return published.get();
+  }
+
+  public long getConsumedCount() {
+    return consumed.get();
+  }
+
+  public long getReplyTimeoutCount() {
+    return timeouts.get();
+  }
+
+  /**
+   * @return the events published and not yet delivered by the dispatcher
+   */
+  public long getDispatcherBacklog() {
+    return Math.max(0, published.get() - dispatched.get());
+  }
+
+  public long getRoundTripCount() {
+    return roundTrip.getTotalCount();
+  }
+
+  public double getRoundTripMean() {
+    return roundTrip.getMean() / NANOS_PER_MILLI;
+  }
+
+  public double getRoundTripPercentile(double percentile) {
+    return roundTrip.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+  }
+
+  public long getProcessedCount() {
+    return processing.getTotalCount();
+  }
+
+  public double getProcessingMean() {
+    return processing.getMean() / NANOS_PER_MILLI;
+  }
+
+  public double getProcessingPercentile(double percentile) {
+    return processing.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+  }
+
+  public void reset() {
+    published.set(0);
+    dispatched.set(0);
+    consumed.set(0);
+    timeouts.set(0);
+    roundTrip.reset();
+    processing.reset();
+  }
+
+  private static void record(AtomicHistogram histogram, long nanos) {
+    histogram.recordValue(Math.max(1, Math.min(nanos, HIGHEST_TRACKABLE)));
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabrò
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+/**
+ * The {@link reactor.event.dispatch.Dispatcher} an endpoint can ask for with the
+ * {@code dispatcher} option.
+ * <ul>
+ * <li>{@code sync}: events are dispatched on the thread that notifies them</li>
+ * <li>{@code threadPool}: a thread pool executor of {@code poolSize} threads</li>
+ * <li>{@code ringBuffer}: a single threaded LMAX Disruptor ring of {@code bufferSize} slots</li>
+ * <li>{@code workQueue}: a Disruptor work queue of {@code bufferSize} slots shared by
+ * {@code poolSize} threads</li>
+ * </ul>
+ *
+ * @author mmcalabro
+ */
+public enum DispatcherType {
+  sync, threadPool, ringBuffer, workQueue
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabrò
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+/**
+ * How the Camel headers of a {@link ReactorMessage} relate to the headers of its Reactor event.
+ * <ul>
+ * <li>{@code copy}: the event headers are copied into the message on first access and every
+ * header is copied back into a new event on the way out</li>
+ * <li>{@code view}: the message headers are a live, copy-on-write overlay of the event headers and
+ * only the changed entries are applied to the outgoing event</li>
+ * </ul>
+ *
+ * @author mmcalabro
+ */
+public enum HeaderMode {
+  copy, view
+}
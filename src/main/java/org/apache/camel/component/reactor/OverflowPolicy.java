@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabrò
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+/**
+ * What a producer does with an exchange when {@code maxPending} events are already in flight.
+ * <ul>
+ * <li>{@code block}: the exchange waits for a slot; the caller is suspended through its
+ * {@link org.apache.camel.AsyncCallback} rather than blocked. When {@code maxPending} exchanges
+ * are already waiting, the exchange fails as with {@code fail}</li>
+ * <li>{@code drop}: the exchange completes without sending its event</li>
+ * <li>{@code dropOldest}: the exchange waits for a slot and, when {@code maxPending} exchanges are
+ * already waiting, the oldest of them completes without sending its event</li>
+ * <li>{@code fail}: the exchange fails with a
+ * {@link java.util.concurrent.RejectedExecutionException}</li>
+ * <li>{@code spool}: the event of an InOnly exchange is written to a {@link ReactorSpool} on disk
+ * and the exchange completes; spooled events are sent in order as slots are given back, and new
+ * events are spooled behind them until the spool is empty. InOut exchanges wait as with
+ * {@code block}</li>
+ * </ul>
+ *
+ * @author mmcalabro
+ */
+public enum OverflowPolicy {
+  block, drop, dropOldest, fail, spool
+}
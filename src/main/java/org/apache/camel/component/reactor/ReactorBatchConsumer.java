@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.event.Event;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A {@link ReactorConsumer} that gathers the events of its registrations and delivers them as one
+ * exchange, whose body is the {@link List} of the events, once {@code batchSize} events are
+ * received or {@code batchTimeout} milliseconds after the first event of the batch, whichever
+ * comes first.
+ * <p>
+ * Batches are InOnly: the reply-to of the events is ignored. The pending batch is delivered when
+ * the consumer stops.
+ *
+ * @author mmcalabro
+ */
+public class ReactorBatchConsumer extends ReactorConsumer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorBatchConsumer.class);
+
+  private ScheduledExecutorService scheduler;
+  private ReactorBatcher<Event<?>> batcher;
+
+  public ReactorBatchConsumer(ReactorEndpoint endpoint, Processor processor) {
+    super(endpoint, processor);
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    scheduler =
+        getEndpoint().getCamelContext().getExecutorServiceManager()
+            .newSingleThreadScheduledExecutor(this, "ReactorBatchConsumer");
+    ReactorConfiguration configuration = getEndpoint().getConfiguration();
+    batcher =
+        new ReactorBatcher<Event<?>>(configuration.getBatchSize(),
+            configuration.getBatchTimeout(), scheduler) {
+          @Override
+          protected void onBatch(List<Event<?>> batch) {
+            process(batch);
+          }
+        };
+    super.doStart();
+  }
+
+  @Override
+  protected void drain() throws Exception {
+    LOG.debug("Delivering pending events on stop");
+    batcher.close();
+    getEndpoint().getCamelContext().getExecutorServiceManager().shutdownNow(scheduler);
+    scheduler = null;
+  }
+
+  @Override
+  protected void onEvent(Event<?> event) {
+    retainBuffer(event);
+    batcher.add(event);
+  }
+
+  protected void process(List<Event<?>> events) {
+    getMetrics().consumed(events.size());
+    long start = System.nanoTime();
+    Exchange exchange = getEndpoint().createExchange(events);
+    try {
+      getProcessor().process(exchange);
+    } catch (Exception e) {
+      exchange.setException(e);
+    }
+    getMetrics().processed(System.nanoTime() - start);
+    if (exchange.getException() != null) {
+      getExceptionHandler().handleException("Error processing batch of " + events.size()
+          + " Reactor events", exchange, exchange.getException());
+    } else {
+      for (Event<?> event : events) {
+        acknowledge(event);
+      }
+    }
+    for (Event<?> event : events) {
+      releaseBuffer(event);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers items into batches bounded by size and time: a batch is handed to {@link #onBatch} when
+ * it reaches {@code batchSize} items or {@code batchTimeout} milliseconds after its first item,
+ * whichever comes first. {@link #onBatch} is invoked outside of any lock, on the thread adding the
+ * last item or on the scheduler thread. Once {@link #close closed}, items are handed over one by
+ * one, as they are added, without using the scheduler any more.
+ *
+ * @author mmcalabro
+ */
+public abstract class ReactorBatcher<T> {
+
+  private final Object lock = new Object();
+  private final int batchSize;
+  private final long batchTimeout;
+  private final ScheduledExecutorService scheduler;
+  private List<T> batch;
+  private ScheduledFuture<?> timeout;
+  private boolean closed;
+
+  public ReactorBatcher(int batchSize, long batchTimeout, ScheduledExecutorService scheduler) {
+    this.batchSize = batchSize;
+    this.batchTimeout = batchTimeout;
+    this.scheduler = scheduler;
+  }
+
+  public void add(T item) {
+    List<T> full = null;
+    synchronized (lock) {
+      if (closed) {
+        full = Collections.singletonList(item);
+      } else if (batch == null) {
+        final List<T> started = new ArrayList<>(batchSize);
+        batch = started;
+        if (batchSize > 1 && batchTimeout > 0) {
+          timeout = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+              onTimeout(started);
+            }
+          }, batchTimeout, TimeUnit.MILLISECONDS);
+        }
+      }
+      if (full == null) {
+        batch.add(item);
+        if (batch.size() >= batchSize) {
+          full = takeBatch();
+        }
+      }
+    }
+    if (full != null) {
+      onBatch(full);
+    }
+  }
+
+  /**
+   * Hands the pending batch, if any, to {@link #onBatch}, then the items added afterwards one by
+   * one: the scheduler may be shut down once closed.
+   */
+  public void close() {
+    List<T> pending;
+    synchronized (lock) {
+      closed = true;
+      pending = takeBatch();
+    }
+    if (pending != null) {
+      onBatch(pending);
+    }
+  }
+
+  protected abstract void onBatch(List<T> batch);
+
+  private void onTimeout(List<T> expired) {
+    List<T> pending = null;
+    synchronized (lock) {
+      // the batch may have been completed by size in the meantime
+      if (batch == expired) {
+        pending = takeBatch();
+      }
+    }
+    if (pending != null) {
+      onBatch(pending);
+    }
+  }
+
+  private List<T> takeBatch() {
+    List<T> answer = batch;
+    batch = null;
+    if (timeout != null) {
+      timeout.cancel(false);
+      timeout = null;
+    }
+    return answer;
+  }
+}
@@ -11,9 +11,9 @@ import reactor.event.Event;
 import reactor.tuple.Tuple2;
 
 import java.io.Serializable;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.apache.camel.component.reactor.ReactorConstants.*;
@@ -44,31 +44,60 @@ public class ReactorBinding {
     }
   }
 
-  private static <T> Method findGetter(Class<T> klass, String name) {
-    name = Character.toUpperCase(name.charAt(0)) + name.substring(1);
-    for (Method method : klass.getDeclaredMethods()) {
-      if (isGetter(method)
-          && (method.getName().matches("^get" + name) || method.getName().matches("^is" + name))) {
-        return method;
+  /**
+   * @return whether the event is a batch of events published by a batching producer
+   */
+  public static boolean isBatch(Event<?> event) {
+    return event.getData() instanceof List && Boolean.TRUE.equals(event.getHeaders().get(BATCH));
+  }
+
+  /**
+   * Returns copies of the events of a batch, each carrying the key and the headers (e.g. the ones
+   * resolved by an URI selector) of the batch event. The events of a batch are shared by all the
+   * consumers it is routed to, so each gets its own copies.
+   */
+  @SuppressWarnings("unchecked")
+  public static List<Event<?>> getBatch(Event<?> batch) {
+    List<Event<?>> events = (List<Event<?>>) batch.getData();
+    List<Event<?>> answer = new ArrayList<>(events.size());
+    for (Event<?> event : events) {
+      Map<String, Object> headers = new HashMap<>(event.getHeaders().asMap());
+      for (Tuple2<String, Object> tuple : batch.getHeaders()) {
+        if (!BATCH.equals(tuple.getT1()) && !headers.containsKey(tuple.getT1())) {
+          headers.put(tuple.getT1(), tuple.getT2());
+        }
       }
+      Event<Object> copy = new Event<Object>(new Event.Headers(headers), event.getData());
+      copy.setKey(batch.getKey());
+      if (event.getReplyTo() != null) {
+        copy.setReplyTo(event.getReplyTo());
+      }
+      answer.add(copy);
     }
-    return null;
+    return answer;
   }
 
-  private static boolean isGetter(Method method) {
-    String name = method.getName();
-    Class<?> returnType = method.getReturnType();
-    return Modifier.isPublic(method.getModifiers())
-        && method.getParameterTypes().length == 0
-        && ((name.matches("^get[A-Z].*") && !returnType.equals(void.class)) || (name
-            .matches("^is[A-Z].*") && !returnType.equals(boolean.class)));
+  /**
+   * Same as {@link Event#copy()} without copying the headers: the copy shares the data and the
+   * headers of the given event, the headers it sets or removes being recorded on the copy only.
+   */
+  public static Event<?> copyOnWrite(Event<?> event) {
+    Event<Object> copy =
+        new Event<Object>(new ReactorCopyOnWriteHeaders(event.getHeaders()), event.getData());
+    copy.setKey(event.getKey());
+    if (event.getReplyTo() != null) {
+      copy.setReplyTo(event.getReplyTo());
+    }
+    return copy;
   }
 
-  private static boolean isSetter(Method method) {
-    String name = method.getName();
-    Class<?> returnType = method.getReturnType();
-    return Modifier.isPublic(method.getModifiers()) && method.getParameterTypes().length == 0
-        && name.matches("^set[A-Z].*") && returnType.equals(void.class);
+  /**
+   * Wraps the given events into one batch event.
+   */
+  public static Event<List<Event<?>>> createBatch(List<Event<?>> events) {
+    Event<List<Event<?>>> batch = Event.wrap(events);
+    batch.getHeaders().set(BATCH, Boolean.TRUE);
+    return batch;
   }
 
   public Object getBodyFromEvent(Exchange exchange, Event<?> event) {
@@ -83,6 +112,10 @@ public class ReactorBinding {
         DefaultExchangeHolder holder = (DefaultExchangeHolder) data;
         DefaultExchangeHolder.unmarshal(exchange, holder);
         return exchange.getIn().getBody();
+      } else if (data instanceof ReactorExchangeSnapshot) {
+        ReactorExchangeSnapshot snapshot = (ReactorExchangeSnapshot) data;
+        snapshot.restore(exchange);
+        return snapshot.getBody();
       } else {
         return event.getData();
       }
@@ -112,13 +145,7 @@ public class ReactorBinding {
   }
 
   public Object getObjectProperty(Event<?> event, String name) {
-    Method getter = findGetter(event.getClass(), name);
-    Object value = null;
-    try {
-      value = getter.invoke(event);
-    } catch (Exception e) {
-      // noop
-    }
+    Object value = ReactorEventProperties.get(event, name);
     if (value == null) {
       value = event.getHeaders().get(name);
     }
@@ -132,16 +159,20 @@ public class ReactorBinding {
   public Event<?> createReactorEvent(Exchange exchange, Message message) {
     Event<?> ret = null;
     if (endpoint != null && endpoint.isTransferExchange()) {
-      Serializable holder = DefaultExchangeHolder.marshal(exchange);
-      ret = Event.wrap(holder);
+      ret = createTransferEvent(exchange);
     }
 
     boolean alwaysCopy = endpoint != null && endpoint.getConfiguration().isAlwaysCopyMessage();
+    if (ret == null && message instanceof ReactorMessage
+        && ((ReactorMessage) message).getEvent() != null
+        && ((ReactorMessage) message).isHeaderView()) {
+      ret = createReactorEvent(exchange, (ReactorMessage) message);
+    }
+
     if (ret == null && message instanceof ReactorMessage
         && ((ReactorMessage) message).getEvent() != null) {
-      ret =
-          (alwaysCopy) ? ((ReactorMessage) message).getEvent().copy() : ((ReactorMessage) message)
-              .getEvent();
+      Event<?> event = ((ReactorMessage) message).getEvent();
+      ret = alwaysCopy ? copyOnWrite(event) : event;
     }
 
     if (ret == null && message.getBody() != null) {
@@ -150,10 +181,46 @@ public class ReactorBinding {
     return ret;
   }
 
+  /**
+   * Creates an event carrying the whole exchange, as configured by the {@link TransferMode} of the
+   * endpoint.
+   */
+  protected Event<?> createTransferEvent(Exchange exchange) {
+    ReactorConfiguration configuration = endpoint.getConfiguration();
+    if (configuration.getTransferMode() == TransferMode.snapshot) {
+      return Event.wrap(ReactorExchangeSnapshot.of(exchange,
+          configuration.isIncludeAllProperties()));
+    }
+    Serializable holder =
+        DefaultExchangeHolder.marshal(exchange, configuration.isIncludeAllProperties());
+    return Event.wrap(holder);
+  }
+
+  /**
+   * Creates the outgoing event of a message in {@link HeaderMode#view} mode, overlaying the headers
+   * of the event it was created from with only the headers changed in between.
+   */
+  protected Event<?> createReactorEvent(Exchange exchange, ReactorMessage message) {
+    Event<?> event = message.getEvent();
+    Object body = message.getBody();
+    if (body == event) {
+      // mapReactorEvent is off, the body is the event itself
+      body = event.getData();
+    }
+    ReactorEventHeaders view = message.getHeadersView();
+    if (view == null) {
+      view = new ReactorEventHeaders(event);
+    }
+    return view.toEvent(body, filter, exchange);
+  }
+
+  public boolean isHeaderView() {
+    return endpoint != null && endpoint.getConfiguration().getHeaderMode() == HeaderMode.view;
+  }
+
   public Event<?> createReactorEvent(Exchange exchange, Object body, Map<String, Object> headers) {
     if (endpoint != null && endpoint.isTransferExchange()) {
-      Serializable holder = DefaultExchangeHolder.marshal(exchange);
-      return Event.wrap(holder);
+      return createTransferEvent(exchange);
     }
 
     if (body != null) {
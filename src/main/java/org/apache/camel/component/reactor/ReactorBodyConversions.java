@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.util.IOHelper;
+import reactor.io.Buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Direct conversions between the payloads most often carried by events, {@code byte[]},
+ * {@link ByteBuffer}, {@link Buffer}, {@link String} and {@link CharSequence}, and the types most
+ * often asked for, bypassing the type converter registry. The bytes of buffers are shared rather
+ * than copied wherever the target type allows it, that is by buffers but not by byte arrays, which
+ * their callers are free to modify.
+ *
+ * @author mmcalabro
+ */
+final class ReactorBodyConversions {
+
+  private static final Set<Class<?>> IMMUTABLE = new HashSet<Class<?>>(Arrays.asList(
+      String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+      Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class));
+
+  private ReactorBodyConversions() {
+  }
+
+  /**
+   * @return the body converted to the given type, {@code null} when there is no direct conversion
+   */
+  static Object convert(Class<?> type, Object body, Exchange exchange) {
+    if (body instanceof Buffer) {
+      return fromByteBuffer(type, ((Buffer) body).byteBuffer(), exchange);
+    } else if (body instanceof byte[]) {
+      return fromBytes(type, (byte[]) body, exchange);
+    } else if (body instanceof ByteBuffer) {
+      return fromByteBuffer(type, (ByteBuffer) body, exchange);
+    } else if (body instanceof CharSequence) {
+      return fromChars(type, (CharSequence) body, exchange);
+    }
+    return null;
+  }
+
+  /**
+   * @return whether the given value cannot change, so that its conversions can be cached
+   */
+  static boolean isImmutable(Object value) {
+    return IMMUTABLE.contains(value.getClass());
+  }
+
+  private static Object fromBytes(Class<?> type, byte[] bytes, Exchange exchange) {
+    if (type == String.class) {
+      return new String(bytes, charset(exchange));
+    } else if (type == ByteBuffer.class) {
+      return ByteBuffer.wrap(bytes);
+    } else if (type == InputStream.class) {
+      return new ByteArrayInputStream(bytes);
+    }
+    return null;
+  }
+
+  private static Object fromByteBuffer(Class<?> type, ByteBuffer buffer, Exchange exchange) {
+    if (buffer == null) {
+      return null;
+    }
+    if (type == ByteBuffer.class) {
+      // shares the bytes, not the position
+      return buffer.duplicate();
+    } else if (type == byte[].class) {
+      // never the backing array, which may go back to a pool
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.duplicate().get(bytes);
+      return bytes;
+    } else if (type == String.class) {
+      return charset(exchange).decode(buffer.duplicate()).toString();
+    } else if (type == InputStream.class && buffer.hasArray()) {
+      return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(),
+          buffer.remaining());
+    }
+    return null;
+  }
+
+  private static Object fromChars(Class<?> type, CharSequence chars, Exchange exchange) {
+    if (type == String.class) {
+      return chars.toString();
+    } else if (type == byte[].class) {
+      return chars.toString().getBytes(charset(exchange));
+    } else if (type == ByteBuffer.class) {
+      return ByteBuffer.wrap(chars.toString().getBytes(charset(exchange)));
+    } else if (type == InputStream.class) {
+      return new ByteArrayInputStream(chars.toString().getBytes(charset(exchange)));
+    }
+    return null;
+  }
+
+  private static Charset charset(Exchange exchange) {
+    return exchange != null ? Charset.forName(IOHelper.getCharsetName(exchange)) : Charset
+        .defaultCharset();
+  }
+}
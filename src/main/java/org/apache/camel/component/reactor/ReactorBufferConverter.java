@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Converter;
+import reactor.io.Buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Type converters of {@link Buffer} and {@link ByteBuffer} payloads that wrap their bytes rather
+ * than copy them to a {@code byte[]}, as the converters of camel-core do. The position of the
+ * converted buffers is left untouched. A {@link Buffer} is a {@link ReadableByteChannel} itself.
+ *
+ * @author mmcalabro
+ */
+@Converter
+public final class ReactorBufferConverter {
+
+  private ReactorBufferConverter() {
+  }
+
+  @Converter
+  public static InputStream toInputStream(ByteBuffer buffer) {
+    return new ReactorByteBufferInputStream(buffer);
+  }
+
+  @Converter
+  public static InputStream toInputStream(Buffer buffer) {
+    return new ReactorByteBufferInputStream(buffer.byteBuffer());
+  }
+
+  @Converter
+  public static ReadableByteChannel toReadableByteChannel(ByteBuffer buffer) {
+    return new ReactorByteBufferChannel(buffer);
+  }
+
+  @Converter
+  public static ByteBuffer toByteBuffer(Buffer buffer) {
+    return buffer.byteBuffer().duplicate();
+  }
+
+  @Converter
+  public static Buffer toBuffer(ByteBuffer buffer) {
+    return new Buffer(buffer.duplicate());
+  }
+
+  @Converter
+  public static byte[] toByteArray(Buffer buffer) {
+    return buffer.asBytes();
+  }
+
+  @Converter
+  public static String toString(Buffer buffer) {
+    return buffer.asString();
+  }
+}
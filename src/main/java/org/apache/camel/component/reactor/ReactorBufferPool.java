@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import reactor.io.Buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct {@link ByteBuffer}s for producers building binary payloads, sparing both the
+ * cost of allocating direct memory and the copy of heap buffers on I/O. Buffers are pooled by
+ * power of two capacity, from {@value #MIN_CAPACITY} bytes to {@value #MAX_CAPACITY} bytes, up to
+ * {@code capacity} bytes overall; larger buffers are allocated on the heap and never pooled.
+ * <p>
+ * The buffers handed out are reference counted, starting from the reference of the caller of
+ * {@link #acquire}: each holder {@link #retain}s a buffer and {@link #release}s it once done with
+ * it, the buffer going back to the pool when the last reference is released. Producers hold a
+ * reference to the buffer of an InOnly event until it is routed to the consumers, which hold
+ * their own until their exchange completes; the reference of the caller is released by the caller
+ * once the event is sent, or handed over with the event by a producer with {@code releaseBuffers}
+ * enabled. Buffers this pool did not hand out, or whose references are all released, are ignored.
+ *
+ * @author mmcalabro
+ */
+public class ReactorBufferPool {
+
+  static final int MIN_CAPACITY = 4096;
+  static final int MAX_CAPACITY = 4 * 1024 * 1024;
+  private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CAPACITY);
+
+  private final long capacity;
+  private final Queue<ByteBuffer>[] pools;
+  private final AtomicLong pooled = new AtomicLong();
+  private final AtomicLong allocated = new AtomicLong();
+  /**
+   * The references to the buffers handed out, by identity: the equality of buffers is their
+   * content.
+   */
+  private final ConcurrentMap<Lease, AtomicInteger> leases = new ConcurrentHashMap<>();
+
+  public ReactorBufferPool(long capacity) {
+    this.capacity = capacity;
+    int count = Integer.numberOfTrailingZeros(MAX_CAPACITY) - MIN_SHIFT + 1;
+    @SuppressWarnings("unchecked")
+    Queue<ByteBuffer>[] pools = (Queue<ByteBuffer>[]) new Queue<?>[count];
+    for (int i = 0; i < pools.length; i++) {
+      pools[i] = new ConcurrentLinkedQueue<>();
+    }
+    this.pools = pools;
+  }
+
+  /**
+   * @return a cleared buffer of at least the given capacity, direct unless larger than
+   *         {@value #MAX_CAPACITY} bytes, with one reference held by the caller
+   */
+  public ByteBuffer acquire(int size) {
+    if (size > MAX_CAPACITY) {
+      return ByteBuffer.allocate(size);
+    }
+    int index = indexOf(size);
+    ByteBuffer buffer = pools[index].poll();
+    if (buffer == null) {
+      allocated.incrementAndGet();
+      buffer = ByteBuffer.allocateDirect(MIN_CAPACITY << index);
+    } else {
+      pooled.addAndGet(-buffer.capacity());
+      buffer.clear();
+    }
+    leases.put(new Lease(buffer), new AtomicInteger(1));
+    return buffer;
+  }
+
+  /**
+   * Takes one more reference to a buffer handed out by this pool.
+   *
+   * @return whether the buffer was handed out by this pool and is still referenced
+   */
+  public boolean retain(ByteBuffer buffer) {
+    AtomicInteger references = leases.get(new Lease(buffer));
+    if (references == null) {
+      return false;
+    }
+    for (;;) {
+      int count = references.get();
+      if (count == 0) {
+        return false;
+      }
+      if (references.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases one reference to a buffer handed out by this pool, keeping the buffer for reuse, if
+   * the pool is not full, once all its references are released. Buffers not handed out by this
+   * pool, or already released, are ignored.
+   */
+  public void release(ByteBuffer buffer) {
+    Lease lease = new Lease(buffer);
+    AtomicInteger references = leases.get(lease);
+    if (references == null) {
+      return;
+    }
+    for (;;) {
+      int count = references.get();
+      if (count == 0) {
+        return;
+      }
+      if (references.compareAndSet(count, count - 1)) {
+        if (count > 1) {
+          return;
+        }
+        break;
+      }
+    }
+    leases.remove(lease, references);
+    int size = buffer.capacity();
+    if (pooled.addAndGet(size) > capacity) {
+      pooled.addAndGet(-size);
+      return;
+    }
+    pools[indexOf(size)].offer(buffer);
+  }
+
+  /**
+   * @return the buffer carried by an event, {@code null} if its data is not a buffer
+   */
+  static ByteBuffer bufferOf(Object data) {
+    if (data instanceof ByteBuffer) {
+      return (ByteBuffer) data;
+    } else if (data instanceof Buffer) {
+      return ((Buffer) data).byteBuffer();
+    }
+    return null;
+  }
+
+  /**
+   * @return the bytes of the buffers ready for reuse
+   */
+  public long getPooledBytes() {
+    return pooled.get();
+  }
+
+  /**
+   * @return the number of direct buffers allocated by this pool
+   */
+  public long getAllocatedCount() {
+    return allocated.get();
+  }
+
+  /**
+   * @return the number of buffers handed out and still referenced
+   */
+  public int getLeasedCount() {
+    return leases.size();
+  }
+
+  private static int indexOf(int size) {
+    if (size <= MIN_CAPACITY) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+  }
+
+  /**
+   * A buffer compared by identity.
+   */
+  private static final class Lease {
+
+    private final ByteBuffer buffer;
+
+    private Lease(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Lease && ((Lease) o).buffer == buffer;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(buffer);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A {@link ReadableByteChannel} reading the remaining bytes of a {@link ByteBuffer} straight into
+ * the buffers it is given, without any intermediate copy. The position of the given buffer is left
+ * untouched.
+ *
+ * @author mmcalabro
+ */
+public class ReactorByteBufferChannel implements ReadableByteChannel {
+
+  private final ByteBuffer buffer;
+  private boolean open = true;
+
+  public ReactorByteBufferChannel(ByteBuffer buffer) {
+    this.buffer = buffer.duplicate();
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    if (!buffer.hasRemaining()) {
+      return -1;
+    }
+    int n = Math.min(dst.remaining(), buffer.remaining());
+    ByteBuffer slice = buffer.duplicate();
+    slice.limit(slice.position() + n);
+    dst.put(slice);
+    buffer.position(buffer.position() + n);
+    return n;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+  }
+}
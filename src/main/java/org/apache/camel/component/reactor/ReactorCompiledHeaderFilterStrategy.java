@@ -0,0 +1,262 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.HeaderFilterStrategy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link HeaderFilterStrategy} that filters headers by exact names and name prefixes instead of
+ * regular expressions. The rules are compiled into a hash set and a prefix trie on first use, and
+ * the decision taken for each header name is cached, in a cache bounded to {@code cacheSize} names
+ * per direction, so that filtering a known header costs one hash lookup.
+ * <p>
+ * Out of the box it filters the same headers as {@link ReactorHeaderFilterStrategy}, except that a
+ * prefix matches whatever follows it. Use it by reference with the {@code headerFilterStrategy}
+ * endpoint option.
+ *
+ * @author mmcalabro
+ */
+public class ReactorCompiledHeaderFilterStrategy implements HeaderFilterStrategy {
+
+  private final Set<String> outFilter = new LinkedHashSet<>();
+  private final Set<String> outPrefixes = new LinkedHashSet<>();
+  private final Set<String> inFilter = new LinkedHashSet<>();
+  private final Set<String> inPrefixes = new LinkedHashSet<>();
+  private boolean caseInsensitive = true;
+  private int cacheSize = 1024;
+  private volatile Rules outRules;
+  private volatile Rules inRules;
+
+  public ReactorCompiledHeaderFilterStrategy() {
+    outFilter.addAll(ReactorHeaderFilterStrategy.OUT_FILTER);
+    outPrefixes.addAll(Arrays.asList("Camel", "org.apache.camel", "JMS"));
+  }
+
+  @Override
+  public boolean applyFilterToCamelHeaders(String headerName, Object headerValue,
+      Exchange exchange) {
+    Rules rules = outRules;
+    if (rules == null) {
+      rules = outRules = compile(outFilter, outPrefixes);
+    }
+    return rules.filter(headerName);
+  }
+
+  @Override
+  public boolean applyFilterToExternalHeaders(String headerName, Object headerValue,
+      Exchange exchange) {
+    Rules rules = inRules;
+    if (rules == null) {
+      rules = inRules = compile(inFilter, inPrefixes);
+    }
+    return rules.filter(headerName);
+  }
+
+  public Set<String> getOutFilter() {
+    return outFilter;
+  }
+
+  public void setOutFilter(Collection<String> names) {
+    replace(outFilter, names);
+  }
+
+  public Set<String> getOutPrefixes() {
+    return outPrefixes;
+  }
+
+  public void setOutPrefixes(Collection<String> prefixes) {
+    replace(outPrefixes, prefixes);
+  }
+
+  public Set<String> getInFilter() {
+    return inFilter;
+  }
+
+  public void setInFilter(Collection<String> names) {
+    replace(inFilter, names);
+  }
+
+  public Set<String> getInPrefixes() {
+    return inPrefixes;
+  }
+
+  public void setInPrefixes(Collection<String> prefixes) {
+    replace(inPrefixes, prefixes);
+  }
+
+  public boolean isCaseInsensitive() {
+    return caseInsensitive;
+  }
+
+  public void setCaseInsensitive(boolean caseInsensitive) {
+    this.caseInsensitive = caseInsensitive;
+    reset();
+  }
+
+  public int getCacheSize() {
+    return cacheSize;
+  }
+
+  public void setCacheSize(int cacheSize) {
+    this.cacheSize = cacheSize;
+    reset();
+  }
+
+  /**
+   * Discards the compiled rules and the cached decisions, to be invoked after changing the sets
+   * returned by the getters.
+   */
+  public void reset() {
+    outRules = null;
+    inRules = null;
+  }
+
+  private void replace(Set<String> set, Collection<String> values) {
+    set.clear();
+    if (values != null) {
+      set.addAll(values);
+    }
+    reset();
+  }
+
+  private Rules compile(Set<String> names, Set<String> prefixes) {
+    Set<String> exact = new HashSet<>();
+    for (String name : names) {
+      exact.add(normalize(name));
+    }
+    PrefixTrie trie = new PrefixTrie();
+    for (String prefix : prefixes) {
+      trie.add(normalize(prefix));
+    }
+    return new Rules(exact, trie, caseInsensitive, cacheSize);
+  }
+
+  private String normalize(String name) {
+    return caseInsensitive ? name.toLowerCase(Locale.ENGLISH) : name;
+  }
+
+  private static final class Rules {
+
+    private final Set<String> exact;
+    private final PrefixTrie prefixes;
+    private final boolean caseInsensitive;
+    private final int cacheSize;
+    private final ConcurrentMap<String, Boolean> decisions;
+
+    private Rules(Set<String> exact, PrefixTrie prefixes, boolean caseInsensitive,
+        int cacheSize) {
+      this.exact = exact;
+      this.prefixes = prefixes;
+      this.caseInsensitive = caseInsensitive;
+      this.cacheSize = cacheSize;
+      this.decisions = new ConcurrentHashMap<>();
+    }
+
+    private boolean filter(String name) {
+      if (name == null) {
+        return true;
+      }
+      Boolean decision = decisions.get(name);
+      if (decision == null) {
+        decision = decide(name);
+        if (cacheSize > 0) {
+          if (decisions.size() >= cacheSize) {
+            // evict an arbitrary entry, the cache is only meant to bound the memory used by
+            // headers with generated names
+            Iterator<String> it = decisions.keySet().iterator();
+            if (it.hasNext()) {
+              it.next();
+              it.remove();
+            }
+          }
+          decisions.put(name, decision);
+        }
+      }
+      return decision;
+    }
+
+    private boolean decide(String name) {
+      String normalized = caseInsensitive ? name.toLowerCase(Locale.ENGLISH) : name;
+      return exact.contains(normalized) || prefixes.matches(normalized);
+    }
+  }
+
+  /**
+   * A trie of prefixes on the characters of the names.
+   */
+  private static final class PrefixTrie {
+
+    private final Node root = new Node();
+
+    private void add(String prefix) {
+      Node node = root;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.child(prefix.charAt(i), true);
+      }
+      node.terminal = true;
+    }
+
+    /**
+     * @return whether a prefix of the trie is a prefix of the name
+     */
+    private boolean matches(String name) {
+      Node node = root;
+      for (int i = 0; !node.terminal; i++) {
+        if (i == name.length()) {
+          return false;
+        }
+        node = node.child(name.charAt(i), false);
+        if (node == null) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class Node {
+
+    private char[] chars = new char[0];
+    private Node[] children = new Node[0];
+    private boolean terminal;
+
+    private Node child(char c, boolean create) {
+      for (int i = 0; i < chars.length; i++) {
+        if (chars[i] == c) {
+          return children[i];
+        }
+      }
+      if (!create) {
+        return null;
+      }
+      Node child = new Node();
+      chars = Arrays.copyOf(chars, chars.length + 1);
+      children = Arrays.copyOf(children, children.length + 1);
+      chars[chars.length - 1] = c;
+      children[children.length - 1] = child;
+      return child;
+    }
+  }
+}
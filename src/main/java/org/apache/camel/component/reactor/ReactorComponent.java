@@ -13,16 +13,32 @@
  */
 package org.apache.camel.component.reactor;
 
+import com.lmax.disruptor.dsl.ProducerType;
 import org.apache.camel.BeanInject;
 import org.apache.camel.Endpoint;
 import org.apache.camel.impl.HeaderFilterStrategyComponent;
 import org.apache.camel.spi.HeaderFilterStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import reactor.core.Environment;
 import reactor.core.Reactor;
 import reactor.core.spec.Reactors;
 import reactor.event.dispatch.Dispatcher;
+import reactor.event.dispatch.RingBufferDispatcher;
+import reactor.event.dispatch.SynchronousDispatcher;
+import reactor.event.dispatch.ThreadPoolExecutorDispatcher;
+import reactor.event.dispatch.WorkQueueDispatcher;
+import reactor.function.Consumer;
+import reactor.timer.HashWheelTimer;
+import reactor.timer.Timer;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 
 import static org.apache.camel.component.reactor.ReactorConfiguration.*;
 
@@ -33,8 +49,30 @@ import static org.apache.camel.component.reactor.ReactorConfiguration.*;
  */
 public class ReactorComponent extends HeaderFilterStrategyComponent {
 
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorComponent.class);
+
   private final Reactor reactor;
 
+  private final ConcurrentMap<String, Reactor> reactors = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, ReactorRingBuffer> ringBuffers = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<Object, ReactorSelectorRouter> routers = new ConcurrentHashMap<>();
+
+  private boolean selectorRouter;
+
+  private int selectorCacheSize = 1024;
+
+  private long bufferPoolCapacity = 64 * 1024 * 1024;
+
+  private ReactorBufferPool bufferPool;
+
+  private final Map<String, ReactorJournal> journals = new HashMap<>();
+
+  private final Map<String, ExecutorService> journalExecutors = new HashMap<>();
+
+  private Timer timer;
+
   private ReactorConfiguration configuration;
 
   public ReactorComponent() {
@@ -85,14 +123,23 @@ public class ReactorComponent extends HeaderFilterStrategyComponent {
     } else if (remaining.startsWith(REGEX_PREFIX)) {
       type = SelectorType.regex;
       selector = remaining.substring(REGEX_PREFIX.length());
+    } else if (remaining.startsWith(RINGBUFFER_PREFIX)) {
+      type = SelectorType.ringbuffer;
+      selector = remaining.substring(RINGBUFFER_PREFIX.length());
     } else {
       type = SelectorType.object;
       selector = remaining;
     }
 
     ReactorConfiguration conf = getConfiguration().copy();
+    setProperties(conf, parameters);
 
     ReactorEndpoint endpoint = new ReactorEndpoint(uri, this, type, selector, conf);
+    if (headerFilterStrategy != null) {
+      endpoint.setHeaderFilterStrategy(headerFilterStrategy);
+    } else {
+      setEndpointHeaderFilterStrategy(endpoint);
+    }
     setProperties(endpoint.getEndpointConfiguration(), parameters);
     return endpoint;
   }
@@ -101,6 +148,224 @@ public class ReactorComponent extends HeaderFilterStrategyComponent {
     return reactor;
   }
 
+  /**
+   * Returns the reactor to use for the given endpoint configuration: the component reactor when
+   * no dispatcher is configured, otherwise a reactor on a dedicated dispatcher, shared by all the
+   * endpoints with the same dispatcher settings and shut down with the component.
+   * <p>
+   * The reactors of the dispatchers share the consumer registry and the event router of the
+   * component reactor, so that they form a single bus: an event sent from any endpoint reaches the
+   * consumers of every endpoint, whatever their dispatcher, and is dispatched to them by the
+   * dispatcher of the sending endpoint.
+   */
+  public Reactor getReactor(ReactorConfiguration configuration) {
+    DispatcherType type = configuration.getDispatcher();
+    if (type == null) {
+      return reactor;
+    }
+    String key = getDispatcherKey(configuration);
+    Reactor answer = reactors.get(key);
+    if (answer == null) {
+      synchronized (reactors) {
+        answer = reactors.get(key);
+        if (answer == null) {
+          LOG.debug("Creating reactor with dispatcher {}", key);
+          answer =
+              new Reactor(reactor.getConsumerRegistry(), createDispatcher(key, configuration),
+                  reactor.getEventRouter(), reactor.getDispatchErrorHandler(),
+                  reactor.getUncaughtErrorHandler());
+          reactors.put(key, answer);
+        }
+      }
+    }
+    return answer;
+  }
+
+  protected Dispatcher createDispatcher(String name, ReactorConfiguration configuration) {
+    int bufferSize = configuration.getBufferSize();
+    int poolSize = configuration.getPoolSize();
+    switch (configuration.getDispatcher()) {
+      case sync:
+        return new SynchronousDispatcher();
+      case threadPool:
+        return new ThreadPoolExecutorDispatcher(poolSize, bufferSize);
+      case ringBuffer:
+        if (Integer.bitCount(bufferSize) != 1) {
+          throw new IllegalArgumentException("bufferSize must be a power of 2: " + bufferSize);
+        }
+        return new RingBufferDispatcher(name, bufferSize, new DispatcherErrorHandler(name),
+            ProducerType.MULTI, configuration.getWaitStrategy().create());
+      default:
+        return new WorkQueueDispatcher(name, poolSize, bufferSize,
+            new DispatcherErrorHandler(name));
+    }
+  }
+
+  private static String getDispatcherKey(ReactorConfiguration configuration) {
+    switch (configuration.getDispatcher()) {
+      case sync:
+        return DispatcherType.sync.name();
+      case ringBuffer:
+        return DispatcherType.ringBuffer + "-" + configuration.getBufferSize() + "-"
+            + configuration.getWaitStrategy();
+      default:
+        return configuration.getDispatcher() + "-" + configuration.getPoolSize() + "-"
+            + configuration.getBufferSize();
+    }
+  }
+
+  /**
+   * Returns the ring buffer of the given name, created with the settings of the first endpoint
+   * asking for it.
+   */
+  public ReactorRingBuffer getRingBuffer(String name, ReactorConfiguration configuration) {
+    ReactorRingBuffer answer = ringBuffers.get(name);
+    if (answer == null) {
+      ReactorRingBuffer created =
+          new ReactorRingBuffer(name, configuration.getBufferSize(),
+              configuration.getWaitStrategy());
+      answer = ringBuffers.putIfAbsent(name, created);
+      if (answer == null) {
+        LOG.debug("Created ring buffer {} of {} slots", name, configuration.getBufferSize());
+        answer = created;
+      }
+    }
+    return answer;
+  }
+
+  /**
+   * @return the router of the uri and regex selectors of the given reactor, or {@code null} unless
+   *         {@code selectorRouter} is enabled
+   */
+  public ReactorSelectorRouter getSelectorRouter(Reactor reactor) {
+    if (!selectorRouter) {
+      return null;
+    }
+    // one router per consumer registry, shared by the reactors of the dispatchers
+    Object registry = reactor.getConsumerRegistry();
+    ReactorSelectorRouter answer = routers.get(registry);
+    if (answer == null) {
+      ReactorSelectorRouter created = new ReactorSelectorRouter(reactor, selectorCacheSize);
+      answer = routers.putIfAbsent(registry, created);
+      if (answer == null) {
+        answer = created;
+      }
+    }
+    return answer;
+  }
+
+  public boolean isSelectorRouter() {
+    return selectorRouter;
+  }
+
+  /**
+   * Routes the events of the uri and regex endpoints through a {@link ReactorSelectorRouter}
+   * instead of one Reactor selector per consumer.
+   */
+  public void setSelectorRouter(boolean selectorRouter) {
+    this.selectorRouter = selectorRouter;
+  }
+
+  public int getSelectorCacheSize() {
+    return selectorCacheSize;
+  }
+
+  public void setSelectorCacheSize(int selectorCacheSize) {
+    this.selectorCacheSize = selectorCacheSize;
+  }
+
+  /**
+   * @return the pool of direct buffers shared by the endpoints of this component
+   */
+  public synchronized ReactorBufferPool getBufferPool() {
+    if (bufferPool == null) {
+      bufferPool = new ReactorBufferPool(bufferPoolCapacity);
+    }
+    return bufferPool;
+  }
+
+  public long getBufferPoolCapacity() {
+    return bufferPoolCapacity;
+  }
+
+  /**
+   * Bytes of direct buffers kept for reuse by the buffer pool.
+   */
+  public void setBufferPoolCapacity(long bufferPoolCapacity) {
+    this.bufferPoolCapacity = bufferPoolCapacity;
+  }
+
+  /**
+   * Returns the journal of the given endpoint configuration, opened and started by the first
+   * endpoint asking for it and closed with the component.
+   */
+  public ReactorJournal getJournal(ReactorConfiguration configuration) throws IOException {
+    File directory = new File(configuration.getJournalDirectory());
+    String name = configuration.getJournalName();
+    String key = new File(directory, name).getAbsolutePath();
+    synchronized (journals) {
+      ReactorJournal answer = journals.get(key);
+      if (answer == null) {
+        ReactorEventSerializer serializer =
+            configuration.getEventSerializer() != null ? configuration.getEventSerializer()
+                : new DefaultReactorEventSerializer();
+        answer = new ReactorJournal(directory, name, configuration.getSegmentSize(), serializer);
+        ExecutorService executor =
+            getCamelContext().getExecutorServiceManager().newSingleThreadExecutor(answer,
+                "ReactorJournal-" + name);
+        answer.start(executor);
+        LOG.debug("Opened journal {}", key);
+        journals.put(key, answer);
+        journalExecutors.put(key, executor);
+      }
+      return answer;
+    }
+  }
+
+  /**
+   * @return the hashed wheel timer shared by the endpoints of this component
+   */
+  public synchronized Timer getTimer() {
+    if (timer == null) {
+      timer = new HashWheelTimer();
+    }
+    return timer;
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    synchronized (this) {
+      if (timer != null) {
+        timer.cancel();
+        timer = null;
+      }
+      bufferPool = null;
+    }
+    synchronized (reactors) {
+      for (Map.Entry<String, Reactor> entry : reactors.entrySet()) {
+        LOG.debug("Shutting down dispatcher {}", entry.getKey());
+        entry.getValue().getDispatcher().shutdown();
+      }
+      reactors.clear();
+    }
+    synchronized (journals) {
+      for (Map.Entry<String, ReactorJournal> entry : journals.entrySet()) {
+        LOG.debug("Closing journal {}", entry.getKey());
+        entry.getValue().close();
+        getCamelContext().getExecutorServiceManager().shutdown(
+            journalExecutors.get(entry.getKey()));
+      }
+      journals.clear();
+      journalExecutors.clear();
+    }
+    ringBuffers.clear();
+    for (ReactorSelectorRouter router : routers.values()) {
+      router.stop();
+    }
+    routers.clear();
+    super.doStop();
+  }
+
   public ReactorConfiguration getConfiguration() {
     if (configuration == null) {
       configuration = new ReactorConfiguration();
@@ -111,4 +376,18 @@ public class ReactorComponent extends HeaderFilterStrategyComponent {
   public void setConfiguration(ReactorConfiguration configuration) {
     this.configuration = configuration;
   }
+
+  private static final class DispatcherErrorHandler implements Consumer<Throwable> {
+
+    private final String dispatcher;
+
+    private DispatcherErrorHandler(String dispatcher) {
+      this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void accept(Throwable throwable) {
+      LOG.error("Uncaught error on dispatcher " + dispatcher, throwable);
+    }
+  }
 }
@@ -28,6 +28,7 @@ public class ReactorConfiguration implements Cloneable {
   public static final String TYPE_PREFIX = "type:";
   public static final String REGEX_PREFIX = "regex:";
   public static final String URI_PREFIX = "uri:";
+  public static final String RINGBUFFER_PREFIX = "ringbuffer:";
 
   @UriParam(defaultValue = "true")
   protected boolean mapReactorEvent = true;
@@ -35,14 +36,107 @@ public class ReactorConfiguration implements Cloneable {
   private ErrorHandler errorHandler;
   @UriParam(defaultValue = "false")
   private boolean transferExchange = false;
+  @UriParam(defaultValue = "serialized")
+  private TransferMode transferMode = TransferMode.serialized;
   @UriParam(defaultValue = "true")
   private boolean includeAllProperties = true;
   @UriParam(defaultValue = "true")
   private boolean alwaysCopyMessage = true;
-  @UriParam(
-      defaultValue = "false",
-      description = "Sets whether synchronous processing should be strictly used, or Camel is allowed to use asynchronous processing (if supported).")
+  @UriParam(defaultValue = "copy")
+  private HeaderMode headerMode = HeaderMode.copy;
+  @UriParam(description = "Dispatcher of the events sent from the endpoint, the dispatcher of "
+      + "the component reactor when not set; endpoints on all dispatchers share the same consumers")
+  private DispatcherType dispatcher;
+  @UriParam(defaultValue = "1024")
+  private int bufferSize = 1024;
+  @UriParam
+  private int poolSize = Runtime.getRuntime().availableProcessors();
+  @UriParam(defaultValue = "blocking",
+      description = "How the consumers of a ring buffer wait for events")
+  private WaitStrategyType waitStrategy = WaitStrategyType.blocking;
+  @UriParam(defaultValue = "0",
+      description = "Number of events delivered together as one exchange, 0 disables batching")
+  private int batchSize;
+  @UriParam(defaultValue = "1000",
+      description = "Milliseconds after which an incomplete batch is delivered")
+  private long batchTimeout = 1000;
+  @UriParam(defaultValue = "0", description = "Number of InOnly events a producer publishes "
+      + "together, their exchanges completing once batched, 0 disables batching")
+  private int producerBatchSize;
+  @UriParam(defaultValue = "100",
+      description = "Milliseconds after which a producer publishes an incomplete batch")
+  private long producerBatchTimeout = 100;
+  @UriParam(defaultValue = "0",
+      description = "Maximum number of events in flight from the producers, 0 means unbounded")
+  private int maxPending;
+  @UriParam(defaultValue = "block")
+  private OverflowPolicy overflowPolicy = OverflowPolicy.block;
+  @UriParam(defaultValue = "0",
+      description = "Milliseconds to wait for the reply of an InOut exchange, 0 waits forever")
+  private long requestTimeout;
+  @UriParam(defaultValue = "false",
+      description = "Receives the replies of InOut exchanges on one shared selector per producer")
+  private boolean replyManager;
+  @UriParam(defaultValue = "false", description = "Records metrics of the endpoint, read via JMX")
+  private boolean metrics;
+  @UriParam(description = "Creates the metrics of the endpoint, for a metrics library")
+  private ReactorMetricsFactory metricsFactory;
+  @UriParam(defaultValue = "1",
+      description = "Number of workers processing the events received by a consumer")
+  private int concurrentConsumers = 1;
+  @UriParam(description = "Header, or simple expression, whose value keeps the events in order "
+      + "across concurrent consumers")
+  private String orderingKey;
+  @UriParam(defaultValue = "false",
+      description = "Recycles the in messages of the consumer exchanges once processed")
+  private boolean pooledMessages;
+  @UriParam(defaultValue = "256", description = "Events requested ahead by a Reactive Streams "
+      + "subscriber, or buffered for each subscription of a publisher")
+  private int prefetch = 256;
+  @UriParam(description = "Header match, not an expression, keeping the events that carry the "
+      + "header: name, whose header equals the value: name=value, or differs from it: name!=value")
+  private String filter;
+  @UriParam(defaultValue = "false", description = "Drops the events already received")
+  private boolean distinct;
+  @UriParam(description = "Header identifying the events for distinct, the data when not set")
+  private String distinctKey;
+  @UriParam(defaultValue = "1024", description = "Keys remembered for distinct")
+  private int distinctSize = 1024;
+  @UriParam(defaultValue = "false", description = "Hands the reference of the sender to the "
+      + "pooled buffers of the events sent over to the events, the buffers going back to the pool "
+      + "once routed and processed by all the consumers")
+  private boolean releaseBuffers;
+  @UriParam(description = "Directory of the spool segments, named after the CamelContext and the "
+      + "endpoint, so not to be shared by contexts of the same name; in java.io.tmpdir with a "
+      + "unique name when not set")
+  private String spoolDirectory;
+  @UriParam(defaultValue = "16777216", description = "Bytes of the spool segment files")
+  private int segmentSize = 16 * 1024 * 1024;
+  @UriParam(description = "Writes the events spooled or journaled to disk, with Java serialization "
+      + "if not set")
+  private ReactorEventSerializer eventSerializer;
+  @UriParam(defaultValue = "false", description = "Journals the InOnly events to disk before "
+      + "sending them, replaying those not processed on restart; an event is acknowledged by the "
+      + "first consumer that processes or drops it, so each key should have a single consumer")
+  private boolean journal;
+  @UriParam(defaultValue = "reactor-journal", description = "Directory of the journal segments")
+  private String journalDirectory = "reactor-journal";
+  @UriParam(defaultValue = "journal",
+      description = "Journal of the endpoint, shared by the endpoints with the same name")
+  private String journalName = "journal";
+  @UriParam(defaultValue = "true", description = "Sets whether synchronous processing should be "
+      + "strictly used, or consumers hand their exchanges over to a thread pool")
   private boolean synchronous = true;
+  @UriParam(description = "Thread pool of the asynchronous consumers: an ExecutorService in the "
+      + "registry or a thread pool profile, the default profile when not set")
+  private String executorServiceRef;
+  @UriParam(defaultValue = "false",
+      description = "Runs asynchronous consumers on virtual threads, when the JVM supports them")
+  private boolean virtualThreads;
+  @UriParam(defaultValue = "0", description = "Exchanges an asynchronous consumer, or all its "
+      + "concurrent consumers, process at once, 0 for no limit; when reached, the dispatcher thread "
+      + "blocks, which with the sync dispatcher is the thread of the producer")
+  private int maxInFlight;
 
   public ErrorHandler getErrorHandler() {
     return errorHandler;
@@ -84,6 +178,14 @@ public class ReactorConfiguration implements Cloneable {
     this.transferExchange = transferExchange;
   }
 
+  public TransferMode getTransferMode() {
+    return transferMode;
+  }
+
+  public void setTransferMode(TransferMode transferMode) {
+    this.transferMode = transferMode;
+  }
+
   public boolean isIncludeAllProperties() {
     return includeAllProperties;
   }
@@ -99,4 +201,268 @@ public class ReactorConfiguration implements Cloneable {
   public void setAlwaysCopyMessage(boolean alwaysCopyMessage) {
     this.alwaysCopyMessage = alwaysCopyMessage;
   }
+
+  public HeaderMode getHeaderMode() {
+    return headerMode;
+  }
+
+  public void setHeaderMode(HeaderMode headerMode) {
+    this.headerMode = headerMode;
+  }
+
+  public DispatcherType getDispatcher() {
+    return dispatcher;
+  }
+
+  public void setDispatcher(DispatcherType dispatcher) {
+    this.dispatcher = dispatcher;
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  public WaitStrategyType getWaitStrategy() {
+    return waitStrategy;
+  }
+
+  public void setWaitStrategy(WaitStrategyType waitStrategy) {
+    this.waitStrategy = waitStrategy;
+  }
+
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  public void setPoolSize(int poolSize) {
+    this.poolSize = poolSize;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public long getBatchTimeout() {
+    return batchTimeout;
+  }
+
+  public void setBatchTimeout(long batchTimeout) {
+    this.batchTimeout = batchTimeout;
+  }
+
+  public int getProducerBatchSize() {
+    return producerBatchSize;
+  }
+
+  public void setProducerBatchSize(int producerBatchSize) {
+    this.producerBatchSize = producerBatchSize;
+  }
+
+  public long getProducerBatchTimeout() {
+    return producerBatchTimeout;
+  }
+
+  public void setProducerBatchTimeout(long producerBatchTimeout) {
+    this.producerBatchTimeout = producerBatchTimeout;
+  }
+
+  public int getMaxPending() {
+    return maxPending;
+  }
+
+  public void setMaxPending(int maxPending) {
+    this.maxPending = maxPending;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  public long getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  public void setRequestTimeout(long requestTimeout) {
+    this.requestTimeout = requestTimeout;
+  }
+
+  public boolean isReplyManager() {
+    return replyManager;
+  }
+
+  public void setReplyManager(boolean replyManager) {
+    this.replyManager = replyManager;
+  }
+
+  public boolean isMetrics() {
+    return metrics;
+  }
+
+  public void setMetrics(boolean metrics) {
+    this.metrics = metrics;
+  }
+
+  public ReactorMetricsFactory getMetricsFactory() {
+    return metricsFactory;
+  }
+
+  public void setMetricsFactory(ReactorMetricsFactory metricsFactory) {
+    this.metricsFactory = metricsFactory;
+  }
+
+  public int getConcurrentConsumers() {
+    return concurrentConsumers;
+  }
+
+  public void setConcurrentConsumers(int concurrentConsumers) {
+    this.concurrentConsumers = concurrentConsumers;
+  }
+
+  public String getOrderingKey() {
+    return orderingKey;
+  }
+
+  public void setOrderingKey(String orderingKey) {
+    this.orderingKey = orderingKey;
+  }
+
+  public boolean isPooledMessages() {
+    return pooledMessages;
+  }
+
+  public void setPooledMessages(boolean pooledMessages) {
+    this.pooledMessages = pooledMessages;
+  }
+
+  public int getPrefetch() {
+    return prefetch;
+  }
+
+  public void setPrefetch(int prefetch) {
+    this.prefetch = prefetch;
+  }
+
+  public String getFilter() {
+    return filter;
+  }
+
+  public void setFilter(String filter) {
+    this.filter = filter;
+  }
+
+  public boolean isDistinct() {
+    return distinct;
+  }
+
+  public void setDistinct(boolean distinct) {
+    this.distinct = distinct;
+  }
+
+  public String getDistinctKey() {
+    return distinctKey;
+  }
+
+  public void setDistinctKey(String distinctKey) {
+    this.distinctKey = distinctKey;
+  }
+
+  public int getDistinctSize() {
+    return distinctSize;
+  }
+
+  public void setDistinctSize(int distinctSize) {
+    this.distinctSize = distinctSize;
+  }
+
+  public String getExecutorServiceRef() {
+    return executorServiceRef;
+  }
+
+  public void setExecutorServiceRef(String executorServiceRef) {
+    this.executorServiceRef = executorServiceRef;
+  }
+
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  public void setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  public void setMaxInFlight(int maxInFlight) {
+    this.maxInFlight = maxInFlight;
+  }
+
+  public boolean isReleaseBuffers() {
+    return releaseBuffers;
+  }
+
+  public void setReleaseBuffers(boolean releaseBuffers) {
+    this.releaseBuffers = releaseBuffers;
+  }
+
+  public String getSpoolDirectory() {
+    return spoolDirectory;
+  }
+
+  public void setSpoolDirectory(String spoolDirectory) {
+    this.spoolDirectory = spoolDirectory;
+  }
+
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  public void setSegmentSize(int segmentSize) {
+    this.segmentSize = segmentSize;
+  }
+
+  public ReactorEventSerializer getEventSerializer() {
+    return eventSerializer;
+  }
+
+  public void setEventSerializer(ReactorEventSerializer eventSerializer) {
+    this.eventSerializer = eventSerializer;
+  }
+
+  public boolean isJournal() {
+    return journal;
+  }
+
+  public void setJournal(boolean journal) {
+    this.journal = journal;
+  }
+
+  public String getJournalDirectory() {
+    return journalDirectory;
+  }
+
+  public void setJournalDirectory(String journalDirectory) {
+    this.journalDirectory = journalDirectory;
+  }
+
+  public String getJournalName() {
+    return journalName;
+  }
+
+  public void setJournalName(String journalName) {
+    this.journalName = journalName;
+  }
 }
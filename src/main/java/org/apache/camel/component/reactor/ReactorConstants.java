@@ -23,6 +23,11 @@ public final class ReactorConstants {
   public static final String KEY = HEADER_PREFIX + "Key";
   public static final String REPLY_TO = HEADER_PREFIX + "ReplyTo";
   public static final String EVENT_ID = HEADER_PREFIX + "EventId";
+  public static final String BATCH_SIZE = HEADER_PREFIX + "BatchSize";
+  public static final String BATCH = HEADER_PREFIX + "Batch";
+  public static final String CORRELATION_ID = HEADER_PREFIX + "CorrelationId";
+  public static final String RETAINED = HEADER_PREFIX + "Retained";
+  public static final String JOURNAL_POSITION = HEADER_PREFIX + "JournalPosition";
 
   private ReactorConstants() {}
 }
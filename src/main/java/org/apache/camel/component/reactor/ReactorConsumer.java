@@ -14,29 +14,81 @@
 package org.apache.camel.component.reactor;
 
 import org.apache.camel.*;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedOperation;
+import org.apache.camel.api.management.ManagedResource;
+import org.apache.camel.builder.ExpressionBuilder;
+import org.apache.camel.builder.ThreadPoolProfileBuilder;
 import org.apache.camel.impl.DefaultConsumer;
+import org.apache.camel.spi.ExecutorServiceManager;
+import org.apache.camel.spi.ThreadPoolProfile;
+import org.apache.camel.util.ObjectHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.Reactor;
 import reactor.event.Event;
 import reactor.event.registry.Registration;
-import reactor.event.selector.Selectors;
 import reactor.function.Consumer;
-import reactor.function.Predicate;
 
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author mmcalabro
  */
+@ManagedResource(description = "Managed Reactor Consumer")
 public class ReactorConsumer extends DefaultConsumer implements Consumer<Event<?>> {
 
   private static final Logger LOG = LoggerFactory.getLogger(ReactorConsumer.class);
 
   private final ReactorEndpoint endpoint;
 
-  private final ArrayList<Registration<?>> registrations = new ArrayList<>(5);
+  private final List<SelectorRegistration> registrations = new CopyOnWriteArrayList<>();
+
+  private ReactorMetrics metrics = ReactorMetrics.NONE;
+
+  private ReactorEventFilter filter;
+
+  private ExecutorService[] workers;
+
+  /**
+   * The events each worker may hold, queued or in progress, the dispatcher waiting when reached.
+   */
+  private Semaphore[] backlogs;
+
+  private Expression orderingKey;
+
+  private ExecutorService executor;
+
+  /**
+   * Whether the executor was created by the executor service manager, or directly for virtual
+   * threads, rather than looked up in the registry.
+   */
+  private boolean managedExecutor;
+  private boolean virtualExecutor;
+
+  private Semaphore inFlight;
+
+  /**
+   * The context class loader of the thread starting the consumer, that its workers and thread pool
+   * process the exchanges with.
+   */
+  private ClassLoader classLoader;
+
+  private ReactorBufferPool bufferPool;
+
+  private ReactorJournal journal;
+
+  private final AtomicInteger next = new AtomicInteger();
 
   public ReactorConsumer(ReactorEndpoint endpoint, Processor processor) {
     super(endpoint, processor);
@@ -49,70 +101,493 @@ public class ReactorConsumer extends DefaultConsumer implements Consumer<Event<?
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   protected void doStart() throws Exception {
     super.doStart();
-
-    Reactor reactor = getEndpoint().getReactor();
-    switch (endpoint.getSelectorType()) {
-      case type:
-        if (!(endpoint.getSelectorObject() instanceof Class)) {
-          throw new RuntimeCamelException("Endpoint selector object is not a " + Class.class);
+    metrics = getEndpoint().getMetrics();
+    filter = getEndpoint().getEventFilter();
+    classLoader = Thread.currentThread().getContextClassLoader();
+    startWorkers();
+    startExecutor();
+    if (getEndpoint().getComponent() instanceof ReactorComponent) {
+      bufferPool = getEndpoint().getBufferPool();
+    }
+    journal = getEndpoint().getJournal();
+    if (journal != null) {
+      final ReactorJournal replayed = journal;
+      // once all the routes are started, for all the consumers of the journal to be registered
+      getEndpoint().getCamelContext().addStartupListener(new StartupListener() {
+        @Override
+        public void onCamelContextStarted(CamelContext context, boolean alreadyStarted) {
+          replayed.replay(getEndpoint().getReactor());
         }
-        registrations
-            .add(reactor.on(Selectors.type((Class<?>) endpoint.getSelectorObject()), this));
-        break;
+      });
+    }
+
+    registrations.add(new SelectorRegistration(String.valueOf(endpoint.getSelectorObject()),
+        getEndpoint().register(this)));
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    for (SelectorRegistration r : registrations) {
+      r.registration.cancel();
+    }
+    registrations.clear();
+    drain();
+    stopWorkers();
+    stopExecutor();
+    journal = null;
+    super.doStop();
+  }
+
+  /**
+   * Registers one more selector, of the selector type of the endpoint, until this consumer stops.
+   */
+  @ManagedOperation(description = "Registers one more selector, of the type of the endpoint")
+  public void addSelector(String selector) throws ClassNotFoundException {
+    ObjectHelper.notEmpty(selector, "selector");
+    if (!isRunAllowed()) {
+      throw new IllegalStateException("Consumer not started: " + this);
+    }
+    SelectorType type = endpoint.getSelectorType();
+    Object selectorObject;
+    switch (type) {
       case uri:
-        registrations.add(reactor.on(Selectors.uri((String) endpoint.getSelectorObject()), this));
-        break;
       case regex:
-        registrations.add(reactor.on(Selectors.regex((String) endpoint.getSelectorObject()), this));
-        break;
-      case predicate:
-        if (!(endpoint.getSelectorObject() instanceof reactor.function.Predicate)) {
-          throw new RuntimeCamelException("Endpoint selector object is not a " + Predicate.class);
-        }
-        registrations.add(reactor.on(
-            Selectors.predicate((reactor.function.Predicate<Object>) endpoint.getSelectorObject()),
-            this));
+      case object:
+        selectorObject = selector;
         break;
-      case set:
-        if (!(endpoint.getSelectorObject() instanceof Set)) {
-          throw new RuntimeCamelException("Endpoint selector object is not a " + Set.class);
-        }
-        registrations.add(reactor.on(Selectors.setMembership((Set) endpoint.getSelectorObject()),
-            this));
+      case type:
+        selectorObject =
+            getEndpoint().getCamelContext().getClassResolver().resolveMandatoryClass(selector);
         break;
       default:
-        registrations.add(reactor.on(Selectors.object(endpoint.getSelectorObject()), this));
+        throw new IllegalArgumentException("Cannot add a selector to a " + type + " endpoint");
     }
+    registrations.add(new SelectorRegistration(selector,
+        getEndpoint().register(type, selectorObject, this)));
+    LOG.info("Added selector {} to {}", selector, this);
   }
 
-  @Override
-  protected void doStop() throws Exception {
-    for (Registration r : registrations) {
-      r.cancel();
+  /**
+   * Stops delivering the events of the registrations of the given selector, which are dropped,
+   * until resumed.
+   *
+   * @return whether a registration of the selector was found
+   */
+  @ManagedOperation(description = "Pauses the registrations of a selector")
+  public boolean pauseSelector(String selector) {
+    boolean found = false;
+    for (SelectorRegistration r : registrations) {
+      if (r.selector.equals(selector)) {
+        r.registration.pause();
+        found = true;
+      }
     }
-    super.doStop();
+    return found;
+  }
+
+  @ManagedOperation(description = "Resumes the registrations of a selector")
+  public boolean resumeSelector(String selector) {
+    boolean found = false;
+    for (SelectorRegistration r : registrations) {
+      if (r.selector.equals(selector)) {
+        r.registration.resume();
+        found = true;
+      }
+    }
+    return found;
+  }
+
+  @ManagedOperation(description = "Cancels the registrations of a selector")
+  public boolean cancelSelector(String selector) {
+    boolean found = false;
+    for (SelectorRegistration r : registrations) {
+      if (r.selector.equals(selector)) {
+        r.registration.cancel();
+        registrations.remove(r);
+        found = true;
+      }
+    }
+    return found;
+  }
+
+  @ManagedOperation(description = "Pauses all the registrations")
+  public void pauseSelectors() {
+    for (SelectorRegistration r : registrations) {
+      r.registration.pause();
+    }
+  }
+
+  @ManagedOperation(description = "Resumes all the registrations")
+  public void resumeSelectors() {
+    for (SelectorRegistration r : registrations) {
+      r.registration.resume();
+    }
+  }
+
+  /**
+   * @return the selectors of the registrations, with those paused marked as such
+   */
+  @ManagedAttribute(description = "Registered selectors")
+  public List<String> getSelectors() {
+    List<String> answer = new ArrayList<>(registrations.size());
+    for (SelectorRegistration r : registrations) {
+      answer.add(r.registration.isPaused() ? r.selector + " (paused)" : r.selector);
+    }
+    return answer;
+  }
+
+  /**
+   * Starts the workers of {@code concurrentConsumers > 1}: a pool of that many threads or, when an
+   * {@code orderingKey} is set, as many single threads, each processing the events of the keys
+   * hashed to it in order: when not {@code synchronous}, each event holds its worker until its
+   * exchange completes.
+   * <p>
+   * The events are handed over to the workers with a blocking hand-off: once a worker holds as
+   * many events as the queue of the default thread pool profile, the dispatcher waits for it
+   * rather than running the event itself, which would overtake the events queued for its key.
+   */
+  private void startWorkers() {
+    ReactorConfiguration configuration = getEndpoint().getConfiguration();
+    int concurrentConsumers = configuration.getConcurrentConsumers();
+    if (concurrentConsumers <= 1) {
+      return;
+    }
+    ExecutorServiceManager manager = getEndpoint().getCamelContext().getExecutorServiceManager();
+    Integer queueSize = manager.getDefaultThreadPoolProfile().getMaxQueueSize();
+    int backlog = queueSize != null && queueSize > 0 ? queueSize : 0;
+    String key = configuration.getOrderingKey();
+    if (key == null) {
+      workers =
+          new ExecutorService[] {manager.newThreadPool(this, "ReactorConsumer",
+              workerProfile(concurrentConsumers, backlog))};
+      backlogs = newBacklogs(1, backlog, concurrentConsumers);
+      return;
+    }
+    if (key.contains("${")) {
+      orderingKey = getEndpoint().getCamelContext().resolveLanguage("simple").createExpression(key);
+    } else {
+      orderingKey = ExpressionBuilder.headerExpression(key);
+    }
+    workers = new ExecutorService[concurrentConsumers];
+    for (int i = 0; i < concurrentConsumers; i++) {
+      workers[i] = manager.newThreadPool(this, "ReactorConsumer-" + i, workerProfile(1, backlog));
+    }
+    backlogs = newBacklogs(concurrentConsumers, backlog, 1);
+  }
+
+  /**
+   * @return the profile of workers of the given number of threads, whose queue holds their backlog
+   *         and the events of the threads giving back their permit: they only reject events once
+   *         shut down
+   */
+  private static ThreadPoolProfile workerProfile(int threads, int backlog) {
+    int queueSize = backlog > 0 ? backlog + 2 * threads : Integer.MAX_VALUE;
+    return new ThreadPoolProfileBuilder("ReactorConsumer").poolSize(threads).maxPoolSize(threads)
+        .maxQueueSize(queueSize).rejectedPolicy(ThreadPoolRejectedPolicy.Abort).build();
+  }
+
+  /**
+   * @return the backlogs of the workers, {@code null} when the queue of the default profile is
+   *         unbounded
+   */
+  private static Semaphore[] newBacklogs(int count, int backlog, int threads) {
+    if (backlog == 0) {
+      return null;
+    }
+    Semaphore[] answer = new Semaphore[count];
+    for (int i = 0; i < count; i++) {
+      answer[i] = new Semaphore(backlog + threads);
+    }
+    return answer;
+  }
+
+  /**
+   * Completes the events already handed to the workers, then stops them.
+   */
+  private void stopWorkers() {
+    if (workers == null) {
+      return;
+    }
+    ExecutorServiceManager manager = getEndpoint().getCamelContext().getExecutorServiceManager();
+    for (ExecutorService worker : workers) {
+      manager.shutdownGraceful(worker);
+    }
+    workers = null;
+    backlogs = null;
+    orderingKey = null;
+  }
+
+  /**
+   * Starts the thread pool of an asynchronous consumer, which hands its exchanges over to release
+   * the dispatcher thread, unless it already has workers of its own.
+   */
+  private void startExecutor() {
+    ReactorConfiguration configuration = getEndpoint().getConfiguration();
+    if (configuration.getMaxInFlight() > 0 && (workers != null || !configuration.isSynchronous())) {
+      // shared by the workers, on top of their own backlogs
+      inFlight = new Semaphore(configuration.getMaxInFlight());
+    }
+    if (configuration.isSynchronous() || workers != null) {
+      return;
+    }
+    if (configuration.isVirtualThreads()) {
+      executor = newVirtualThreadExecutor();
+      if (executor != null) {
+        virtualExecutor = true;
+        return;
+      }
+    }
+    ExecutorServiceManager manager = getEndpoint().getCamelContext().getExecutorServiceManager();
+    String ref = configuration.getExecutorServiceRef();
+    if (ref == null) {
+      executor = manager.newDefaultThreadPool(this, "ReactorAsyncConsumer");
+    } else {
+      executor =
+          getEndpoint().getCamelContext().getRegistry()
+              .lookupByNameAndType(ref, ExecutorService.class);
+      if (executor != null) {
+        // shared, not to be shut down by this consumer
+        return;
+      }
+      executor = manager.newThreadPool(this, "ReactorAsyncConsumer", ref);
+      if (executor == null) {
+        throw new IllegalArgumentException("No ExecutorService nor thread pool profile found for: "
+            + ref);
+      }
+    }
+    managedExecutor = true;
+  }
+
+  /**
+   * @return an executor starting a virtual thread per task, {@code null} when the JVM has none
+   */
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      LOG.warn("Virtual threads are not supported by this JVM, using a thread pool instead");
+      return null;
+    }
+  }
+
+  /**
+   * Completes the exchanges already handed to the thread pool, then stops it.
+   */
+  private void stopExecutor() {
+    if (managedExecutor) {
+      getEndpoint().getCamelContext().getExecutorServiceManager().shutdownGraceful(executor);
+    } else if (virtualExecutor) {
+      executor.shutdown();
+    }
+    executor = null;
+    managedExecutor = false;
+    virtualExecutor = false;
+    inFlight = null;
+  }
+
+  /**
+   * Holds a reference to the pooled buffer of an InOnly event while its exchange is processed, for
+   * the buffer not to be reused under its feet. The buffers of InOut events are left to their
+   * producer, waiting for the reply.
+   */
+  protected void retainBuffer(Event<?> event) {
+    ByteBuffer buffer = ReactorBufferPool.bufferOf(event.getData());
+    if (buffer != null && bufferPool != null) {
+      bufferPool.retain(buffer);
+    }
+  }
+
+  /**
+   * Releases the reference taken by {@link #retainBuffer} once the exchange of the event
+   * completes.
+   */
+  protected void releaseBuffer(Event<?> event) {
+    ByteBuffer buffer = ReactorBufferPool.bufferOf(event.getData());
+    if (buffer != null && bufferPool != null) {
+      bufferPool.release(buffer);
+    }
+  }
+
+  /**
+   * Acknowledges a journaled event once processed or dropped by the filter, not to be replayed on
+   * restart.
+   */
+  protected void acknowledge(Event<?> event) {
+    ReactorJournal journal = this.journal;
+    Object position = event.getHeaders().get(ReactorConstants.JOURNAL_POSITION);
+    if (journal != null && position instanceof Long) {
+      journal.ack((Long) position);
+    }
+  }
+
+  protected ReactorMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Invoked while stopping, once the registrations are cancelled and no more events are received,
+   * to complete the work still pending.
+   */
+  protected void drain() throws Exception {
+    // nothing pending by default
   }
 
   @Override
-  public void accept(final Event<?> event) {
+  public void accept(Event<?> event) {
+    if (ReactorBinding.isBatch(event)) {
+      for (Event<?> e : ReactorBinding.getBatch(event)) {
+        accept(e);
+      }
+    } else if (filter == null || filter.accept(event)) {
+      onEvent(event);
+    } else {
+      // dropped events are done with, not to be replayed on every restart
+      acknowledge(event);
+    }
+  }
+
+  /**
+   * Processes one event, invoked by {@link #accept} for every event received, or for every event
+   * of a batch published by a batching {@link ReactorProducer}. With concurrent consumers the
+   * event is processed by a worker instead of the dispatcher thread, and by the thread pool of the
+   * consumer when not {@code synchronous}.
+   */
+  protected void onEvent(final Event<?> event) {
+    metrics.consumed(1);
     final boolean inOut = event.getReplyTo() != null;
+    if (!inOut) {
+      retainBuffer(event);
+    }
 
     final Exchange exchange = endpoint.createExchange(event);
     exchange.setPattern(inOut ? ExchangePattern.InOut : ExchangePattern.InOnly);
     // Message in = exchange.getIn();
     // ReactorMessageHelper.fillMessage(event, in);
 
+    ExecutorService[] workers = this.workers;
+    ExecutorService executor;
+    final Semaphore backlog;
+    if (workers != null) {
+      int worker = selectWorker(exchange, workers.length);
+      Semaphore[] backlogs = this.backlogs;
+      executor = workers[worker];
+      backlog = backlogs != null ? backlogs[worker] : null;
+    } else {
+      executor = this.executor;
+      backlog = null;
+    }
+    if (executor == null) {
+      process(event, exchange, null, null, false);
+      return;
+    }
+    final Semaphore inFlight = this.inFlight;
+    final boolean ordered = workers != null && orderingKey != null;
+    try {
+      // holds the dispatcher thread back rather than queueing exchanges without bound, which on a
+      // sync dispatcher is the thread of the producer
+      acquire(backlog);
+      try {
+        acquire(inFlight);
+      } catch (InterruptedException e) {
+        release(backlog);
+        throw e;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      if (!inOut) {
+        releaseBuffer(event);
+      }
+      getExceptionHandler().handleException("Interrupted waiting to process Reactor event: "
+          + event, exchange, e);
+      return;
+    }
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          // threads started from the dispatcher thread inherit its context class loader, by which
+          // Reactor takes them for the dispatcher: the events they send, as the replies, would be
+          // queued behind a dispatch in progress on their own thread, and never delivered
+          Thread thread = Thread.currentThread();
+          ClassLoader inherited = thread.getContextClassLoader();
+          thread.setContextClassLoader(classLoader);
+          try {
+            process(event, exchange, backlog, inFlight, ordered);
+          } finally {
+            thread.setContextClassLoader(inherited);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      release(backlog);
+      release(inFlight);
+      if (!inOut) {
+        releaseBuffer(event);
+      }
+      getExceptionHandler().handleException("Error processing Reactor event: " + event, exchange,
+          e);
+    }
+  }
+
+  private static void acquire(Semaphore permits) throws InterruptedException {
+    if (permits != null) {
+      permits.acquire();
+    }
+  }
+
+  private static void release(Semaphore permits) {
+    if (permits != null) {
+      permits.release();
+    }
+  }
+
+  /**
+   * @return the worker of the ordering key of the exchange, any worker when it has none
+   */
+  private int selectWorker(Exchange exchange, int count) {
+    if (count == 1) {
+      return 0;
+    }
+    Object key = orderingKey.evaluate(exchange, Object.class);
+    int hash = key != null ? key.hashCode() : next.getAndIncrement();
+    return (hash & Integer.MAX_VALUE) % count;
+  }
+
+  /**
+   * Processes the exchange of the event, sending its reply, if InOut, once the exchange completes,
+   * and giving back its permits, if any. When {@code ordered}, the worker of the ordering key waits
+   * for an asynchronous exchange to complete before moving on to the next event of its keys.
+   */
+  private void process(final Event<?> event, final Exchange exchange, final Semaphore backlog,
+      final Semaphore inFlight, boolean ordered) {
+    final long start = System.nanoTime();
+    final boolean inOut = exchange.getPattern() == ExchangePattern.InOut;
+
     AsyncCallback callback = new AsyncCallback() {
       @Override
       public void done(boolean b) {
+        metrics.processed(System.nanoTime() - start);
+        release(backlog);
+        release(inFlight);
+        if (!inOut) {
+          releaseBuffer(event);
+        }
+        if (exchange.getException() == null) {
+          acknowledge(event);
+        }
         if (inOut) {
           final Reactor reactor = getEndpoint().getReactor();
           final Event<?> response =
               getEndpoint().getBinding().createReactorEvent(exchange,
                   exchange.hasOut() ? exchange.getOut() : exchange.getIn());
+          Object correlationId = event.getHeaders().get(ReactorConstants.CORRELATION_ID);
+          if (correlationId != null) {
+            // the producer waits for the reply on a shared selector
+            response.getHeaders().set(ReactorConstants.CORRELATION_ID, correlationId);
+          }
           reactor.notify(event.getReplyTo(), response);
           LOG.debug("Sent reply to: {} with body: {}", event.getReplyTo(), response);
         }
@@ -127,13 +602,55 @@ public class ReactorConsumer extends DefaultConsumer implements Consumer<Event<?
       } finally {
         callback.done(true);
       }
+      endpoint.releaseExchange(exchange);
+    } else if (ordered) {
+      final AsyncCallback done = callback;
+      final CountDownLatch completed = new CountDownLatch(1);
+      process(event, exchange, new AsyncCallback() {
+        @Override
+        public void done(boolean doneSync) {
+          try {
+            done.done(doneSync);
+          } finally {
+            completed.countDown();
+          }
+        }
+      });
+      awaitCompletion(completed, event);
     } else {
-      try {
-        getAsyncProcessor().process(exchange, callback);
-      } catch (Exception e) {
-        getExceptionHandler().handleException("Error processing Reactor event: " + event, exchange,
-            e);
-      }
+      process(event, exchange, callback);
+    }
+  }
+
+  private void process(Event<?> event, Exchange exchange, AsyncCallback callback) {
+    try {
+      getAsyncProcessor().process(exchange, callback);
+    } catch (Exception e) {
+      getExceptionHandler().handleException("Error processing Reactor event: " + event, exchange,
+          e);
+      exchange.setException(e);
+      callback.done(true);
+    }
+  }
+
+  private static void awaitCompletion(CountDownLatch completed, Event<?> event) {
+    try {
+      completed.await();
+    } catch (InterruptedException e) {
+      // shut down: the next events of the key may overtake this one
+      Thread.currentThread().interrupt();
+      LOG.debug("Interrupted waiting for the exchange of Reactor event: {}", event);
+    }
+  }
+
+  private static final class SelectorRegistration {
+
+    private final String selector;
+    private final Registration<?> registration;
+
+    private SelectorRegistration(String selector, Registration<?> registration) {
+      this.selector = selector;
+      this.registration = registration;
     }
   }
 }
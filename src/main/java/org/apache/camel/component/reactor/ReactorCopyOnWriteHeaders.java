@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import reactor.event.Event;
+import reactor.tuple.Tuple;
+import reactor.tuple.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * {@link Event.Headers} overlaying the headers of another event: reads go to the shared headers
+ * until written, while the headers set here, or removed by setting them to {@code null}, are
+ * recorded in this overlay only. The shared headers are never modified, and nothing is copied
+ * when nothing changes.
+ * <p>
+ * The shared headers are expected not to change any more, as those of an event already dispatched:
+ * headers set on them afterwards, by another consumer of the same event, show through the overlay.
+ *
+ * @author mmcalabro
+ */
+public class ReactorCopyOnWriteHeaders extends Event.Headers {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Event.Headers shared;
+  private boolean written;
+  private Set<String> removed;
+
+  public ReactorCopyOnWriteHeaders(Event.Headers shared) {
+    // not to chain the reads through the copies of copies
+    this.shared =
+        shared instanceof ReactorCopyOnWriteHeaders ? ((ReactorCopyOnWriteHeaders) shared)
+            .unwritten() : shared;
+  }
+
+  /**
+   * @return the shared headers when nothing is written, otherwise these headers
+   */
+  private synchronized Event.Headers unwritten() {
+    return written ? this : shared;
+  }
+
+  /**
+   * @return whether any header has been set or removed
+   */
+  public synchronized boolean isWritten() {
+    return written;
+  }
+
+  @Override
+  public synchronized <V> Event.Headers set(String name, V value) {
+    written = true;
+    super.set(name, value);
+    if (value != null) {
+      if (removed != null) {
+        removed.remove(name);
+      }
+    } else if (shared.contains(name)) {
+      if (removed == null) {
+        // case insensitive, as Event.Headers
+        removed = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+      }
+      removed.add(name);
+    }
+    return this;
+  }
+
+  @Override
+  public Event.Headers setAll(Map<String, Object> headers) {
+    if (headers != null) {
+      for (Map.Entry<String, Object> entry : headers.entrySet()) {
+        set(entry.getKey(), entry.getValue());
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public Event.Headers setOrigin(String origin) {
+    return set(ORIGIN, origin);
+  }
+
+  @Override
+  public String getOrigin() {
+    return get(ORIGIN);
+  }
+
+  @Override
+  public synchronized <V> V get(String name) {
+    if (written) {
+      if (removed != null && removed.contains(name)) {
+        return null;
+      }
+      if (super.contains(name)) {
+        return super.get(name);
+      }
+    }
+    return shared.get(name);
+  }
+
+  @Override
+  public synchronized boolean contains(String name) {
+    if (written) {
+      if (removed != null && removed.contains(name)) {
+        return false;
+      }
+      if (super.contains(name)) {
+        return true;
+      }
+    }
+    return shared.contains(name);
+  }
+
+  @Override
+  public synchronized Map<String, Object> asMap() {
+    if (!written) {
+      return shared.asMap();
+    }
+    Map<String, Object> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    map.putAll(shared.asMap());
+    if (removed != null) {
+      map.keySet().removeAll(removed);
+    }
+    map.putAll(super.asMap());
+    return Collections.unmodifiableMap(map);
+  }
+
+  @Override
+  public Event.Headers readOnly() {
+    return new Event.Headers(asMap()).readOnly();
+  }
+
+  @Override
+  public Iterator<Tuple2<String, Object>> iterator() {
+    if (!isWritten()) {
+      return shared.iterator();
+    }
+    Map<String, Object> map = asMap();
+    List<Tuple2<String, Object>> tuples = new ArrayList<>(map.size());
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      tuples.add(Tuple.of(entry.getKey(), entry.getValue()));
+    }
+    return tuples.iterator();
+  }
+
+  @Override
+  public String toString() {
+    return asMap().toString();
+  }
+}
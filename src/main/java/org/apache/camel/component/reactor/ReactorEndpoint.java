@@ -15,21 +15,32 @@ package org.apache.camel.component.reactor;
 
 import org.apache.camel.*;
 import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedOperation;
 import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.impl.DefaultEndpoint;
 import org.apache.camel.impl.DefaultExchange;
 import org.apache.camel.processor.ErrorHandler;
 import org.apache.camel.spi.*;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.Reactor;
 import reactor.event.Event;
+import reactor.event.registry.Registration;
+import reactor.event.selector.Selectors;
+import reactor.timer.Timer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * @author mmcalabro
  */
 @ManagedResource(description = "Managed Reactor Endpoint")
-@UriEndpoint(scheme = "reactor", syntax = "reactor:type|uri|regex|object:selector",
+@UriEndpoint(scheme = "reactor", syntax = "reactor:type|uri|regex|object|ringbuffer:selector",
     consumerClass = ReactorConsumer.class, label = "reactor")
 public class ReactorEndpoint extends DefaultEndpoint implements HeaderFilterStrategyAware {
 
@@ -42,6 +53,13 @@ public class ReactorEndpoint extends DefaultEndpoint implements HeaderFilterStra
   private Object selectorObject;
   private HeaderFilterStrategy headerFilterStrategy = new ReactorHeaderFilterStrategy();
   private ReactorBinding binding;
+  private volatile ReactorFlowController flowController;
+
+  private volatile ReactorJournal journal;
+  private volatile ReactorMetrics metrics;
+  private volatile ReactorMessagePool messagePool;
+  private ReactorEventFilter eventFilter;
+  private boolean eventFilterCreated;
 
   public ReactorEndpoint() {
     super();
@@ -54,7 +72,7 @@ public class ReactorEndpoint extends DefaultEndpoint implements HeaderFilterStra
   public ReactorEndpoint(String uri, ReactorComponent component, SelectorType selectorType,
       Object selectorObject, ReactorConfiguration configuration) {
     super(uri, component);
-    this.reactor = component.getReactor();
+    this.reactor = component.getReactor(configuration);
     this.selectorType = selectorType;
     this.selectorObject = selectorObject;
     this.configuration = configuration;
@@ -111,6 +129,11 @@ public class ReactorEndpoint extends DefaultEndpoint implements HeaderFilterStra
     getConfiguration().setTransferExchange(transferExchange);
   }
 
+  @ManagedAttribute
+  public String getTransferMode() {
+    return getConfiguration().getTransferMode().name();
+  }
+
   @ManagedAttribute
   public boolean isIncludeAllProperties() {
     return getConfiguration().isIncludeAllProperties();
@@ -123,6 +146,9 @@ public class ReactorEndpoint extends DefaultEndpoint implements HeaderFilterStra
 
   @Override
   public Producer createProducer() throws Exception {
+    if (selectorType == SelectorType.ringbuffer) {
+      return new ReactorRingBufferProducer(this);
+    }
     return new ReactorProducer(this);
   }
 
@@ -142,20 +168,94 @@ public class ReactorEndpoint extends DefaultEndpoint implements HeaderFilterStra
     boolean inOut = event.getReplyTo() != null;
     ExchangePattern exchangePattern =
         (inOut) ? ExchangePattern.InOptionalOut : ExchangePattern.InOnly;
-    Exchange exchange = createExchange(exchangePattern);
-    exchange.setIn(new ReactorMessage(event, getBinding()));
-    return exchange;
+    return createExchange(exchangePattern, event);
   }
 
   public Exchange createExchange(ExchangePattern exchangePattern, Event<?> event) {
+    ReactorMessagePool pool = getMessagePool();
+    if (pool != null) {
+      return pool.acquire(event, exchangePattern);
+    }
     Exchange exchange = createExchange(exchangePattern);
     exchange.setIn(new ReactorMessage(event, getBinding()));
     return exchange;
   }
 
+  /**
+   * Gives back an exchange created by {@link #createExchange(ExchangePattern, Event)} once
+   * processed, for its message to be recycled when {@code pooledMessages} is enabled.
+   */
+  public void releaseExchange(Exchange exchange) {
+    ReactorMessagePool pool = messagePool;
+    if (pool != null) {
+      pool.release(exchange);
+    }
+  }
+
+  /**
+   * @return the pool of the messages of the consumer exchanges, {@code null} unless
+   *         {@code pooledMessages} is enabled, and the exchanges are processed synchronously, on
+   *         the thread creating them, with headers in {@link HeaderMode#copy} mode
+   */
+  private ReactorMessagePool getMessagePool() {
+    ReactorMessagePool pool = messagePool;
+    if (pool == null && getConfiguration().isPooledMessages()) {
+      ReactorConfiguration configuration = getConfiguration();
+      if (configuration.isSynchronous() && configuration.getConcurrentConsumers() <= 1
+          && configuration.getHeaderMode() == HeaderMode.copy) {
+        synchronized (this) {
+          if (messagePool == null) {
+            messagePool = new ReactorMessagePool(this);
+          }
+          pool = messagePool;
+        }
+      }
+    }
+    return pool;
+  }
+
+  @ManagedAttribute(description = "Pooled messages created")
+  public long getPooledMessagesCreated() {
+    ReactorMessagePool pool = messagePool;
+    return pool != null ? pool.getCreatedCount() : 0;
+  }
+
+  @ManagedAttribute(description = "Pooled messages not recycled as kept by their route")
+  public long getPooledMessagesDiscarded() {
+    ReactorMessagePool pool = messagePool;
+    return pool != null ? pool.getDiscardedCount() : 0;
+  }
+
+  /**
+   * Creates an InOnly exchange whose body is the list of the given events, or of their data when
+   * {@code mapReactorEvent} is enabled.
+   */
+  public Exchange createExchange(List<Event<?>> events) {
+    Exchange exchange = createExchange(ExchangePattern.InOnly);
+    boolean mapReactorEvent = getConfiguration().isMapReactorEvent();
+    List<Object> body = new ArrayList<>(events.size());
+    for (Event<?> event : events) {
+      body.add(mapReactorEvent ? event.getData() : event);
+    }
+    exchange.getIn().setBody(body);
+    exchange.getIn().setHeader(ReactorConstants.BATCH_SIZE, events.size());
+    return exchange;
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public Consumer createConsumer(Processor processor) throws Exception {
+    if (getConfiguration().getDispatcher() != null) {
+      // the consumers are registered with every dispatcher of the component, sharing the registry
+      LOG.warn("The dispatcher option of {} only applies to the events sent from the endpoint: "
+          + "its consumer receives the events of every dispatcher", getEndpointUri());
+    }
+    if (selectorType == SelectorType.ringbuffer) {
+      return new ReactorRingBufferConsumer(this, processor);
+    }
+    if (getConfiguration().getBatchSize() > 0) {
+      return new ReactorBatchConsumer(this, processor);
+    }
     return new ReactorConsumer(this, processor);
   }
 
@@ -206,6 +306,302 @@ public class ReactorEndpoint extends DefaultEndpoint implements HeaderFilterStra
     return super.getEndpointUri();
   }
 
+  /**
+   * @return the timer of the component, used for request timeouts
+   */
+  public Timer getTimer() {
+    if (!(getComponent() instanceof ReactorComponent)) {
+      throw new IllegalStateException("No ReactorComponent to provide a timer to " + this);
+    }
+    return ((ReactorComponent) getComponent()).getTimer();
+  }
+
+  /**
+   * @return the pool of direct buffers of the component, for producers building binary payloads
+   */
+  public ReactorBufferPool getBufferPool() {
+    if (!(getComponent() instanceof ReactorComponent)) {
+      throw new IllegalStateException("No ReactorComponent to provide a buffer pool to " + this);
+    }
+    return ((ReactorComponent) getComponent()).getBufferPool();
+  }
+
+  /**
+   * @return the journal of the component shared by the endpoints with the same
+   *         {@code journalDirectory} and {@code journalName}, {@code null} unless {@code journal}
+   *         is set
+   */
+  public ReactorJournal getJournal() throws IOException {
+    if (!getConfiguration().isJournal()) {
+      return null;
+    }
+    if (!(getComponent() instanceof ReactorComponent)) {
+      throw new IllegalStateException("No ReactorComponent to provide a journal to " + this);
+    }
+    if (journal == null) {
+      journal = ((ReactorComponent) getComponent()).getJournal(getConfiguration());
+    }
+    return journal;
+  }
+
+  @ManagedAttribute(description = "Events journaled and not acknowledged yet")
+  public long getJournalPendingCount() {
+    ReactorJournal journal = this.journal;
+    return journal != null ? journal.getPendingCount() : 0;
+  }
+
+  /**
+   * @return the selector router of the reactor of this endpoint, {@code null} when not enabled on
+   *         the component
+   */
+  public ReactorSelectorRouter getSelectorRouter() {
+    if (getComponent() instanceof ReactorComponent) {
+      return ((ReactorComponent) getComponent()).getSelectorRouter(reactor);
+    }
+    return null;
+  }
+
+  /**
+   * @return a Reactive Streams publisher of the events received by the selector of this endpoint
+   */
+  public Publisher<Exchange> createPublisher() {
+    return new ReactorPublisher(this);
+  }
+
+  /**
+   * @return a Reactive Streams subscriber publishing its items to the selector of this endpoint
+   */
+  public Subscriber<Object> createSubscriber() {
+    return new ReactorSubscriber(this);
+  }
+
+  /**
+   * Registers the given consumer on the reactor of this endpoint, with the selector of the
+   * endpoint, through the selector router of the component when enabled.
+   */
+  public Registration<?> register(reactor.function.Consumer<Event<?>> consumer) {
+    return register(selectorType, selectorObject, consumer);
+  }
+
+  /**
+   * Registers the given consumer on the reactor of this endpoint, with a selector of the given type
+   * and object, through the selector router of the component when enabled.
+   */
+  @SuppressWarnings("unchecked")
+  public Registration<?> register(SelectorType selectorType, Object selectorObject,
+      reactor.function.Consumer<Event<?>> consumer) {
+    ReactorSelectorRouter router = getSelectorRouter();
+    if (router != null
+        && (selectorType == SelectorType.uri || selectorType == SelectorType.regex)) {
+      return router.on(selectorType, (String) selectorObject, consumer);
+    }
+    switch (selectorType) {
+      case type:
+        if (!(selectorObject instanceof Class)) {
+          throw new RuntimeCamelException("Endpoint selector object is not a " + Class.class);
+        }
+        return reactor.on(Selectors.type((Class<?>) selectorObject), consumer);
+      case uri:
+        return reactor.on(Selectors.uri((String) selectorObject), consumer);
+      case regex:
+        return reactor.on(Selectors.regex((String) selectorObject), consumer);
+      case predicate:
+        if (!(selectorObject instanceof reactor.function.Predicate)) {
+          throw new RuntimeCamelException("Endpoint selector object is not a "
+              + reactor.function.Predicate.class);
+        }
+        return reactor.on(
+            Selectors.predicate((reactor.function.Predicate<Object>) selectorObject), consumer);
+      case set:
+        if (!(selectorObject instanceof Set)) {
+          throw new RuntimeCamelException("Endpoint selector object is not a " + Set.class);
+        }
+        return reactor.on(Selectors.setMembership((Set) selectorObject), consumer);
+      default:
+        return reactor.on(Selectors.object(selectorObject), consumer);
+    }
+  }
+
+  /**
+   * @return the ring buffer of a {@code reactor:ringbuffer:<name>} endpoint
+   */
+  public ReactorRingBuffer getRingBuffer() {
+    if (selectorType != SelectorType.ringbuffer) {
+      throw new IllegalStateException("Not a ring buffer endpoint: " + this);
+    }
+    if (!(getComponent() instanceof ReactorComponent)) {
+      throw new IllegalStateException("No ReactorComponent to provide a ring buffer to " + this);
+    }
+    return ((ReactorComponent) getComponent()).getRingBuffer(String.valueOf(selectorObject),
+        getConfiguration());
+  }
+
+  @ManagedAttribute(description = "Free slots of the ring buffer")
+  public long getRingBufferRemainingCapacity() {
+    return selectorType == SelectorType.ringbuffer ? getRingBuffer().getRemainingCapacity() : -1;
+  }
+
+  /**
+   * @return the controller bounding the events in flight from the producers of this endpoint, or
+   *         {@code null} when {@code maxPending} is not set or the endpoint is not started
+   */
+  public ReactorFlowController getFlowController() {
+    return flowController;
+  }
+
+  @ManagedAttribute(description = "Events in flight from the producers")
+  public int getPendingCount() {
+    ReactorFlowController controller = getFlowController();
+    return controller != null ? controller.getPendingCount() : 0;
+  }
+
+  @ManagedAttribute(description = "Exchanges waiting for an event slot")
+  public int getWaitingCount() {
+    ReactorFlowController controller = getFlowController();
+    return controller != null ? controller.getWaitingCount() : 0;
+  }
+
+  @ManagedAttribute(description = "Events spooled to disk, waiting for an event slot")
+  public long getSpooledCount() {
+    ReactorFlowController controller = getFlowController();
+    return controller != null ? controller.getSpooledCount() : 0;
+  }
+
+  @ManagedAttribute(description = "Exchanges dropped by the overflow policy")
+  public long getDroppedCount() {
+    ReactorFlowController controller = getFlowController();
+    return controller != null ? controller.getDroppedCount() : 0;
+  }
+
+  /**
+   * @return the filter of the consumers, {@code null} when neither {@code filter} nor
+   *         {@code distinct} is set
+   */
+  synchronized ReactorEventFilter getEventFilter() {
+    if (!eventFilterCreated) {
+      eventFilter = ReactorEventFilter.create(this);
+      eventFilterCreated = true;
+    }
+    return eventFilter;
+  }
+
+  @ManagedAttribute(description = "Events dropped by filter or distinct before processing")
+  public synchronized long getFilteredCount() {
+    return eventFilter != null ? eventFilter.getFilteredCount() : 0;
+  }
+
+  /**
+   * @return the metrics of this endpoint, {@link ReactorMetrics#NONE} unless {@code metrics} or a
+   *         {@code metricsFactory} is set
+   */
+  public ReactorMetrics getMetrics() {
+    ReactorMetrics answer = metrics;
+    if (answer == null) {
+      synchronized (this) {
+        if (metrics == null) {
+          metrics = createMetrics();
+        }
+        answer = metrics;
+      }
+    }
+    return answer;
+  }
+
+  protected ReactorMetrics createMetrics() {
+    if (getConfiguration().getMetricsFactory() != null) {
+      return getConfiguration().getMetricsFactory().createMetrics(this);
+    }
+    return getConfiguration().isMetrics() ? new DefaultReactorMetrics() : ReactorMetrics.NONE;
+  }
+
+  @ManagedAttribute(description = "Events published by the producers")
+  public long getPublishedCount() {
+    DefaultReactorMetrics metrics = getDefaultMetrics();
+    return metrics != null ? metrics.getPublishedCount() : -1;
+  }
+
+  @ManagedAttribute(description = "Events received by the consumers")
+  public long getConsumedCount() {
+    DefaultReactorMetrics metrics = getDefaultMetrics();
+    return metrics != null ? metrics.getConsumedCount() : -1;
+  }
+
+  @ManagedAttribute(description = "Events published and not yet delivered by the dispatcher")
+  public long getDispatcherBacklog() {
+    DefaultReactorMetrics metrics = getDefaultMetrics();
+    return metrics != null ? metrics.getDispatcherBacklog() : -1;
+  }
+
+  @ManagedAttribute(description = "InOut exchanges timed out waiting for their reply")
+  public long getReplyTimeoutCount() {
+    DefaultReactorMetrics metrics = getDefaultMetrics();
+    return metrics != null ? metrics.getReplyTimeoutCount() : -1;
+  }
+
+  @ManagedAttribute(description = "Mean round-trip time of InOut exchanges in millis")
+  public double getRoundTripMean() {
+    DefaultReactorMetrics metrics = getDefaultMetrics();
+    return metrics != null ? metrics.getRoundTripMean() : -1;
+  }
+
+  @ManagedAttribute(description = "99th percentile of the round-trip time in millis")
+  public double getRoundTrip99thPercentile() {
+    DefaultReactorMetrics metrics = getDefaultMetrics();
+    return metrics != null ? metrics.getRoundTripPercentile(99) : -1;
+  }
+
+  @ManagedAttribute(description = "Mean processing time of the consumers in millis")
+  public double getProcessingMean() {
+    DefaultReactorMetrics metrics = getDefaultMetrics();
+    return metrics != null ? metrics.getProcessingMean() : -1;
+  }
+
+  @ManagedAttribute(description = "99th percentile of the processing time in millis")
+  public double getProcessing99thPercentile() {
+    DefaultReactorMetrics metrics = getDefaultMetrics();
+    return metrics != null ? metrics.getProcessingPercentile(99) : -1;
+  }
+
+  @ManagedOperation(description = "Reset metrics")
+  public void resetMetrics() {
+    DefaultReactorMetrics metrics = getDefaultMetrics();
+    if (metrics != null) {
+      metrics.reset();
+    }
+  }
+
+  private DefaultReactorMetrics getDefaultMetrics() {
+    ReactorMetrics answer = getMetrics();
+    return answer instanceof DefaultReactorMetrics ? (DefaultReactorMetrics) answer : null;
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    super.doStart();
+    if (getConfiguration().getMaxPending() > 0) {
+      flowController =
+          new ReactorFlowController(this, getConfiguration().getMaxPending(), getConfiguration()
+              .getOverflowPolicy());
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    ReactorFlowController controller = flowController;
+    if (controller != null) {
+      flowController = null;
+      controller.shutdown();
+    }
+    // closed by the component
+    journal = null;
+    super.doStop();
+  }
+
+  @ManagedAttribute(description = "Reactor dispatcher")
+  public String getDispatcher() {
+    return reactor != null ? reactor.getDispatcher().getClass().getSimpleName() : null;
+  }
+
   @ManagedAttribute(description = "Service State")
   public String getState() {
     ServiceStatus status = this.getStatus();
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import reactor.event.Event;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops the events a consumer is not interested in on the dispatcher thread, before any exchange
+ * is created for them:
+ * <ul>
+ * <li>{@code filter}: keeps the events carrying a header, {@code name}, whose header equals a
+ * value, {@code name=value}, or differs from it, {@code name!=value}</li>
+ * <li>{@code distinct}: drops the events whose {@code distinctKey} header, or data when not set,
+ * was already seen among the last {@code distinctSize} distinct keys</li>
+ * </ul>
+ * Combined with {@code batchSize} and {@code batchTimeout}, which buffer the remaining events by
+ * count and by time, most of the cost of a noisy selector is paid before Camel sees its events.
+ *
+ * @author mmcalabro
+ */
+final class ReactorEventFilter {
+
+  private final ReactorBinding binding;
+  private final String header;
+  private final String value;
+  private final boolean negated;
+  private final String distinctKey;
+  private final Map<Object, Boolean> seen;
+  private final AtomicLong filtered = new AtomicLong();
+
+  private ReactorEventFilter(ReactorBinding binding, String filter, boolean distinct,
+      String distinctKey, final int distinctSize) {
+    this.binding = binding;
+    if (filter == null) {
+      header = null;
+      value = null;
+      negated = false;
+    } else {
+      int eq = filter.indexOf('=');
+      negated = eq > 0 && filter.charAt(eq - 1) == '!';
+      header = (eq < 0 ? filter : filter.substring(0, negated ? eq - 1 : eq)).trim();
+      value = eq < 0 ? null : filter.substring(eq + 1).trim();
+    }
+    this.distinctKey = distinctKey;
+    if (distinct) {
+      seen = new LinkedHashMap<Object, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Boolean> eldest) {
+          return size() > distinctSize;
+        }
+      };
+    } else {
+      seen = null;
+    }
+  }
+
+  /**
+   * @return the filter of the endpoint, {@code null} when it filters nothing
+   */
+  static ReactorEventFilter create(ReactorEndpoint endpoint) {
+    ReactorConfiguration configuration = endpoint.getConfiguration();
+    if (configuration.getFilter() == null && !configuration.isDistinct()) {
+      return null;
+    }
+    return new ReactorEventFilter(endpoint.getBinding(), configuration.getFilter(),
+        configuration.isDistinct(), configuration.getDistinctKey(),
+        configuration.getDistinctSize());
+  }
+
+  /**
+   * @return whether the event is to be processed
+   */
+  boolean accept(Event<?> event) {
+    if (matches(event) && isDistinct(event)) {
+      return true;
+    }
+    filtered.incrementAndGet();
+    return false;
+  }
+
+  long getFilteredCount() {
+    return filtered.get();
+  }
+
+  private boolean matches(Event<?> event) {
+    if (header == null) {
+      return true;
+    }
+    Object actual = binding.getObjectProperty(event, header);
+    if (value == null) {
+      return actual != null;
+    }
+    boolean equal = actual != null && value.equals(actual.toString());
+    return equal != negated;
+  }
+
+  private boolean isDistinct(Event<?> event) {
+    if (seen == null) {
+      return true;
+    }
+    Object key = distinctKey != null ? binding.getObjectProperty(event, distinctKey)
+        : event.getData();
+    if (key == null) {
+      return true;
+    }
+    synchronized (seen) {
+      return seen.put(key, Boolean.TRUE) == null;
+    }
+  }
+}
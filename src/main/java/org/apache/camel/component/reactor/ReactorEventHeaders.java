@@ -0,0 +1,273 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.HeaderFilterStrategy;
+import org.apache.camel.util.CaseInsensitiveMap;
+import reactor.event.Event;
+import reactor.tuple.Tuple2;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.apache.camel.component.reactor.ReactorConstants.*;
+
+/**
+ * Camel headers of a {@link ReactorMessage} in {@link HeaderMode#view} mode: a live, copy-on-write
+ * overlay on the headers of the Reactor {@link Event}.
+ * <p>
+ * Reads go straight to the event until a header is written or removed, resolving the same names
+ * as {@link ReactorBinding#getObjectProperty}, such as {@code id}, as the message does before its
+ * headers are populated. Changes are recorded in the overlay, leaving the event untouched, and
+ * {@link #toEvent} builds the outgoing event on an overlay of the original {@link Event.Headers}
+ * carrying the changed entries alone. Names are case insensitive in the overlay, as in any Camel
+ * message, and case sensitive in the event.
+ *
+ * @author mmcalabro
+ */
+public class ReactorEventHeaders extends AbstractMap<String, Object> {
+
+  private final Event<?> event;
+  private Map<String, Object> changes;
+  private Set<String> removed;
+  private boolean cleared;
+
+  public ReactorEventHeaders(Event<?> event) {
+    this.event = event;
+  }
+
+  public Event<?> getEvent() {
+    return event;
+  }
+
+  /**
+   * @return whether any header has been added, changed or removed
+   */
+  public boolean isDirty() {
+    return cleared || (changes != null && !changes.isEmpty())
+        || (removed != null && !removed.isEmpty());
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (changes != null && changes.containsKey(key)) {
+      return changes.get(key);
+    }
+    if (key instanceof String && isVisible((String) key)) {
+      return getFromEvent((String) key);
+    }
+    return null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    if (changes != null && changes.containsKey(key)) {
+      return true;
+    }
+    return key instanceof String && isVisible((String) key) && isInEvent((String) key);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    Object previous = get(key);
+    if (changes == null) {
+      changes = new CaseInsensitiveMap();
+    }
+    changes.put(key, value);
+    if (removed != null) {
+      removed.remove(key);
+    }
+    return previous;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    Object previous = get(key);
+    if (changes != null) {
+      changes.remove(key);
+    }
+    if (!cleared && isInEvent((String) key)) {
+      if (removed == null) {
+        removed = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+      }
+      removed.add((String) key);
+    }
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    cleared = true;
+    changes = null;
+    removed = null;
+  }
+
+  @Override
+  public int size() {
+    return keys().size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<Entry<String, Object>>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return new EntryIterator(new ArrayList<>(keys()));
+      }
+
+      @Override
+      public int size() {
+        return ReactorEventHeaders.this.size();
+      }
+    };
+  }
+
+  /**
+   * Creates the outgoing event for the given body, on a {@link ReactorCopyOnWriteHeaders} overlay
+   * of the original {@link Event.Headers}: the original headers ruled out by the filter are
+   * removed from the overlay and the changed entries that pass it are set on it, whether anything
+   * changed or not. The original headers are never modified, nor copied.
+   */
+  public Event<?> toEvent(Object body, HeaderFilterStrategy filter, Exchange exchange) {
+    Object replyTo = event.getReplyTo();
+    Event.Headers headers;
+    if (cleared) {
+      headers = new Event.Headers();
+      replyTo = null;
+    } else {
+      headers = new ReactorCopyOnWriteHeaders(event.getHeaders());
+      for (Tuple2<String, Object> tuple : event.getHeaders()) {
+        String key = tuple.getT1();
+        if ((removed != null && removed.contains(key))
+            || (filter != null && filter.applyFilterToCamelHeaders(key, tuple.getT2(), exchange))) {
+          headers.set(key, null);
+        }
+      }
+      if (removed != null && removed.contains(REPLY_TO)) {
+        replyTo = null;
+      }
+    }
+    if (changes != null) {
+      for (Map.Entry<String, Object> entry : changes.entrySet()) {
+        String key = entry.getKey();
+        if (filter != null && filter.applyFilterToCamelHeaders(key, entry.getValue(), exchange)) {
+          continue;
+        }
+        if (key.equalsIgnoreCase(REPLY_TO)) {
+          replyTo = entry.getValue();
+        } else if (!key.equalsIgnoreCase(KEY) && !key.equalsIgnoreCase(EVENT_ID)) {
+          headers.set(key, entry.getValue());
+        }
+      }
+    }
+    Event<Object> ret = new Event<Object>(headers, body);
+    ret.setKey(event.getKey());
+    if (replyTo != null) {
+      ret.setReplyTo(replyTo);
+    }
+    return ret;
+  }
+
+  private boolean isVisible(String key) {
+    return !cleared && (removed == null || !removed.contains(key));
+  }
+
+  private boolean isInEvent(String key) {
+    return KEY.equals(key) || REPLY_TO.equals(key) || EVENT_ID.equals(key)
+        || event.getHeaders().contains(key) || ReactorEventProperties.get(event, key) != null;
+  }
+
+  private Object getFromEvent(String key) {
+    Object value = ReactorEventProperties.get(event, key);
+    return value != null ? value : event.getHeaders().get(key);
+  }
+
+  private Set<String> keys() {
+    Set<String> keys = new LinkedHashSet<>();
+    if (!cleared) {
+      keys.add(KEY);
+      keys.add(REPLY_TO);
+      keys.add(EVENT_ID);
+      for (Tuple2<String, Object> tuple : event.getHeaders()) {
+        keys.add(tuple.getT1());
+      }
+      if (removed != null) {
+        for (Iterator<String> it = keys.iterator(); it.hasNext();) {
+          if (removed.contains(it.next())) {
+            it.remove();
+          }
+        }
+      }
+    }
+    if (changes != null) {
+      keys.addAll(changes.keySet());
+    }
+    return keys;
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+    private final List<String> keys;
+    private int next;
+
+    private EntryIterator(List<String> keys) {
+      this.keys = keys;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < keys.size();
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final String key = keys.get(next++);
+      return new SimpleEntry<String, Object>(key, get(key)) {
+        @Override
+        public Object setValue(Object value) {
+          super.setValue(value);
+          return put(key, value);
+        }
+      };
+    }
+
+    @Override
+    public void remove() {
+      if (next == 0) {
+        throw new IllegalStateException();
+      }
+      ReactorEventHeaders.this.remove(keys.get(next - 1));
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.RuntimeCamelException;
+import reactor.event.Event;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.camel.component.reactor.ReactorConstants.*;
+
+/**
+ * Read-only access to the bean properties of a Reactor {@link Event}, used to resolve Camel header
+ * names such as {@code key}, {@code replyTo} or {@code id}.
+ * <p>
+ * The accessor table of each {@link Event} class is computed once and cached in a
+ * {@link ClassValue}: the well known {@link Event} properties are read directly, the ones added by
+ * subclasses through a {@link MethodHandle}. A lookup is a single map access and does not allocate.
+ *
+ * @author mmcalabro
+ */
+final class ReactorEventProperties {
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Event.class);
+
+  private static final ClassValue<Map<String, Accessor>> ACCESSORS =
+      new ClassValue<Map<String, Accessor>>() {
+        @Override
+        protected Map<String, Accessor> computeValue(Class<?> type) {
+          return createAccessors(type);
+        }
+      };
+
+  private ReactorEventProperties() {}
+
+  /**
+   * Returns the value of the given property of the event, or {@code null} when the event has no
+   * such property.
+   */
+  static Object get(Event<?> event, String name) {
+    Accessor accessor = ACCESSORS.get(event.getClass()).get(name);
+    if (accessor == null) {
+      return null;
+    }
+    try {
+      return accessor.get(event);
+    } catch (Throwable e) {
+      throw new RuntimeCamelException("Unable to read property " + name + " of " + event, e);
+    }
+  }
+
+  private static Map<String, Accessor> createAccessors(Class<?> type) {
+    Map<String, Accessor> accessors = new HashMap<>();
+    for (Method method : type.getMethods()) {
+      String property = getPropertyName(method);
+      if (property != null) {
+        Accessor accessor = createAccessor(method);
+        if (accessor != null) {
+          accessors.put(property, accessor);
+          String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+          accessors.put(capitalized, accessor);
+        }
+      }
+    }
+    // the well known Event properties are read without indirection
+    put(accessors, new Accessor() {
+      @Override
+      Object get(Event<?> event) {
+        return event.getKey();
+      }
+    }, "key", "Key", KEY);
+    put(accessors, new Accessor() {
+      @Override
+      Object get(Event<?> event) {
+        return event.getReplyTo();
+      }
+    }, "replyTo", "ReplyTo", REPLY_TO);
+    put(accessors, new Accessor() {
+      @Override
+      Object get(Event<?> event) {
+        return event.getId();
+      }
+    }, "id", "Id", EVENT_ID);
+    put(accessors, new Accessor() {
+      @Override
+      Object get(Event<?> event) {
+        return event.getData();
+      }
+    }, "data", "Data");
+    put(accessors, new Accessor() {
+      @Override
+      Object get(Event<?> event) {
+        return event.getHeaders();
+      }
+    }, "headers", "Headers");
+    return accessors;
+  }
+
+  private static void put(Map<String, Accessor> accessors, Accessor accessor, String... names) {
+    for (String name : names) {
+      accessors.put(name, accessor);
+    }
+  }
+
+  private static String getPropertyName(Method method) {
+    if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+        || method.getParameterTypes().length != 0 || method.getReturnType() == void.class
+        || method.getDeclaringClass() == Object.class) {
+      return null;
+    }
+    String name = method.getName();
+    int prefix;
+    if (name.startsWith("get")) {
+      prefix = 3;
+    } else if (name.startsWith("is") && method.getReturnType() == boolean.class) {
+      prefix = 2;
+    } else {
+      return null;
+    }
+    if (name.length() == prefix || !Character.isUpperCase(name.charAt(prefix))) {
+      return null;
+    }
+    return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+  }
+
+  private static Accessor createAccessor(final Method method) {
+    try {
+      final MethodHandle handle =
+          MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE);
+      return new Accessor() {
+        @Override
+        Object get(Event<?> event) throws Throwable {
+          return (Object) handle.invokeExact((Event) event);
+        }
+      };
+    } catch (IllegalAccessException e) {
+      // e.g. a public getter declared by a non public Event subclass
+      return null;
+    }
+  }
+
+  private abstract static class Accessor {
+
+    abstract Object get(Event<?> event) throws Throwable;
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import reactor.event.Event;
+
+import java.io.IOException;
+
+/**
+ * Writes the events spooled or journaled to disk, and reads them back.
+ *
+ * @author mmcalabro
+ */
+public interface ReactorEventSerializer {
+
+  byte[] serialize(Event<?> event) throws IOException;
+
+  Event<?> deserialize(byte[] bytes) throws IOException;
+}
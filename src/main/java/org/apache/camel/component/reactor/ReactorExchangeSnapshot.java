@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A shallow snapshot of an exchange, carried by the events of endpoints transferring the exchange
+ * in {@link TransferMode#snapshot} mode. Unlike a
+ * {@link org.apache.camel.impl.DefaultExchangeHolder}, values are neither checked nor copied: the
+ * snapshot only copies the header and property maps, so that the sending route can go on adding
+ * and removing entries, while the body and the values are shared by reference with the sending
+ * exchange and must not be modified by either side. As in a
+ * {@link org.apache.camel.impl.DefaultExchangeHolder}, the properties Camel keeps for its own use
+ * are left to each exchange.
+ *
+ * @author mmcalabro
+ */
+public final class ReactorExchangeSnapshot {
+
+  private final Object body;
+  private final Map<String, Object> headers;
+  private final Map<String, Object> properties;
+  private final Exception exception;
+  private final boolean fault;
+
+  private ReactorExchangeSnapshot(Object body, Map<String, Object> headers,
+      Map<String, Object> properties, Exception exception, boolean fault) {
+    this.body = body;
+    this.headers = headers;
+    this.properties = properties;
+    this.exception = exception;
+    this.fault = fault;
+  }
+
+  /**
+   * Takes a snapshot of the out message of the exchange, if any, otherwise of the in message.
+   */
+  public static ReactorExchangeSnapshot of(Exchange exchange, boolean includeProperties) {
+    Message message = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
+    Map<String, Object> properties = Collections.emptyMap();
+    if (includeProperties && exchange.hasProperties()) {
+      Map<String, Object> copy = new HashMap<>(exchange.getProperties().size());
+      for (Map.Entry<String, Object> entry : exchange.getProperties().entrySet()) {
+        if (!isInternal(entry.getKey())) {
+          copy.put(entry.getKey(), entry.getValue());
+        }
+      }
+      properties = Collections.unmodifiableMap(copy);
+    }
+    return new ReactorExchangeSnapshot(message.getBody(), copy(message.getHeaders()), properties,
+        exchange.getException(), message.isFault());
+  }
+
+  /**
+   * Restores the snapshot into the in message and the properties of the exchange.
+   */
+  public void restore(Exchange exchange) {
+    Message in = exchange.getIn();
+    in.setBody(body);
+    if (!headers.isEmpty()) {
+      in.getHeaders().putAll(headers);
+    }
+    in.setFault(fault);
+    if (!properties.isEmpty()) {
+      exchange.getProperties().putAll(properties);
+    }
+    if (exception != null) {
+      exchange.setException(exception);
+    }
+  }
+
+  public Object getBody() {
+    return body;
+  }
+
+  public Map<String, Object> getHeaders() {
+    return headers;
+  }
+
+  public Map<String, Object> getProperties() {
+    return properties;
+  }
+
+  public Exception getException() {
+    return exception;
+  }
+
+  public boolean isFault() {
+    return fault;
+  }
+
+  @Override
+  public String toString() {
+    return "ReactorExchangeSnapshot[" + body + "]";
+  }
+
+  /**
+   * @return whether the property is one of the properties Camel keeps on every exchange, such as
+   *         {@link Exchange#CREATED_TIMESTAMP} or {@link Exchange#TO_ENDPOINT}
+   */
+  private static boolean isInternal(String name) {
+    return name.startsWith("Camel") || name.startsWith("org.apache.camel");
+  }
+
+  private static Map<String, Object> copy(Map<String, Object> map) {
+    if (map == null || map.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return Collections.unmodifiableMap(new HashMap<>(map));
+  }
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.util.ExchangeHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.event.Event;
+import reactor.function.Consumer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the number of events in flight from the producers of an endpoint: a slot is taken before
+ * an event is sent and given back once the dispatcher has delivered it, or once the reply of an
+ * InOut exchange is received. Exchanges that find no free slot are handled according to the
+ * {@link OverflowPolicy}.
+ * <p>
+ * Waiting exchanges are suspended, not blocked: {@link #submit} returns {@code false} and the
+ * exchange is sent, and its callback invoked, from another thread when a slot is given back.
+ * Spooled events are sent by that same thread. At most {@code maxPending} exchanges wait at once,
+ * so that asynchronous callers, which are never held back, cannot pile up exchanges without bound.
+ * Exchanges still waiting on {@link #shutdown} fail.
+ *
+ * @author mmcalabro
+ */
+public class ReactorFlowController {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorFlowController.class);
+
+  private final ReactorEndpoint endpoint;
+  private final int maxPending;
+  private final OverflowPolicy overflowPolicy;
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+  private final Deque<Waiting> waiting = new ArrayDeque<>();
+  private final AtomicBoolean replaying = new AtomicBoolean();
+  private final Runnable replay = new Runnable() {
+    @Override
+    public void run() {
+      replay();
+    }
+  };
+  private final Consumer<Event<?>> replayed = new Consumer<Event<?>>() {
+    @Override
+    public void accept(Event<?> event) {
+      endpoint.getMetrics().dispatched(1);
+      release(1);
+    }
+  };
+  private volatile ExecutorService executor;
+  private volatile ReactorSpool spool;
+  private volatile boolean stopped;
+
+  public ReactorFlowController(ReactorEndpoint endpoint, int maxPending,
+      OverflowPolicy overflowPolicy) {
+    this.endpoint = endpoint;
+    this.maxPending = maxPending;
+    this.overflowPolicy = overflowPolicy;
+    ExecutorService executor =
+        endpoint.getCamelContext().getExecutorServiceManager()
+            .newSingleThreadExecutor(this, "ReactorFlowController");
+    // started now rather than by the first slot given back, which may well be on a dispatcher
+    // thread: its context class loader would be inherited, and a dispatcher queues the events
+    // sent from the threads sharing its own instead of dispatching them
+    if (executor instanceof ThreadPoolExecutor) {
+      ((ThreadPoolExecutor) executor).prestartAllCoreThreads();
+    }
+    this.executor = executor;
+  }
+
+  /**
+   * A send that runs once it holds a slot.
+   */
+  public interface Task {
+
+    /**
+     * @param sync whether the task runs on the thread that submitted it
+     * @return whether the exchange completed synchronously
+     */
+    boolean run(boolean sync);
+  }
+
+  /**
+   * Runs the task if a slot is free, otherwise applies the overflow policy.
+   *
+   * @return whether the exchange completed synchronously
+   */
+  public boolean submit(Exchange exchange, AsyncCallback callback, Task task) {
+    return submit(exchange, null, callback, task);
+  }
+
+  /**
+   * Runs the task if a slot is free, otherwise applies the overflow policy, spooling the given
+   * event of the exchange with {@link OverflowPolicy#spool}.
+   *
+   * @return whether the exchange completed synchronously
+   */
+  public boolean submit(Exchange exchange, Event<?> event, AsyncCallback callback, Task task) {
+    if (overflowPolicy == OverflowPolicy.spool && event != null
+        && !ExchangeHelper.isOutCapable(exchange)) {
+      // once spooling, events are spooled behind the ones already spooled, to keep them in order
+      if (!isSpooling() && tryAcquire()) {
+        return task.run(true);
+      }
+      return spool(exchange, event, callback);
+    }
+    if (tryAcquire()) {
+      return task.run(true);
+    }
+    switch (overflowPolicy) {
+      case fail:
+        exchange.setException(new RejectedExecutionException(maxPending
+            + " events already pending on " + endpoint.getEndpointUri()));
+        callback.done(true);
+        return true;
+      case drop:
+        drop(exchange);
+        callback.done(true);
+        return true;
+      default:
+        Waiting evicted = null;
+        boolean rejected = false;
+        synchronized (waiting) {
+          // a slot may have been given back in the meantime
+          if (!tryAcquire()) {
+            if (stopped) {
+              rejected = true;
+            } else if (waiting.size() < maxPending) {
+              waiting.add(new Waiting(exchange, callback, task));
+            } else if (overflowPolicy == OverflowPolicy.dropOldest) {
+              evicted = waiting.poll();
+              waiting.add(new Waiting(exchange, callback, task));
+            } else {
+              rejected = true;
+            }
+            task = null;
+          }
+        }
+        if (evicted != null) {
+          drop(evicted.exchange);
+          evicted.callback.done(false);
+        }
+        if (rejected) {
+          exchange.setException(new RejectedExecutionException(maxPending
+              + " exchanges already waiting on " + endpoint.getEndpointUri()));
+          callback.done(true);
+          return true;
+        }
+        return task != null && task.run(true);
+    }
+  }
+
+  /**
+   * Gives back the given number of slots, handing them over to the waiting exchanges first.
+   */
+  public void release(int slots) {
+    for (int i = 0; i < slots; i++) {
+      final Waiting next;
+      synchronized (waiting) {
+        next = waiting.poll();
+        if (next == null) {
+          pending.decrementAndGet();
+        }
+      }
+      if (next != null) {
+        // the slot is handed over: never send from the thread releasing it, which may well be a
+        // dispatcher thread
+        ExecutorService executor = this.executor;
+        try {
+          if (executor == null) {
+            throw new RejectedExecutionException();
+          }
+          executor.execute(new Runnable() {
+            @Override
+            public void run() {
+              next.task.run(false);
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          // shut down in the meantime
+          pending.decrementAndGet();
+          reject(next);
+        }
+      }
+    }
+    scheduleReplay();
+  }
+
+  private boolean isSpooling() {
+    ReactorSpool spool = this.spool;
+    return spool != null && (!spool.isEmpty() || replaying.get());
+  }
+
+  private boolean spool(Exchange exchange, Event<?> event, AsyncCallback callback) {
+    try {
+      getSpool().offer(event);
+    } catch (IOException e) {
+      exchange.setException(e);
+    }
+    callback.done(true);
+    // slots may have been given back in the meantime
+    scheduleReplay();
+    return true;
+  }
+
+  private void scheduleReplay() {
+    ReactorSpool spool = this.spool;
+    if (spool != null && !spool.isEmpty() && replaying.compareAndSet(false, true)) {
+      ExecutorService executor = this.executor;
+      try {
+        if (executor == null) {
+          throw new RejectedExecutionException();
+        }
+        executor.execute(replay);
+      } catch (RejectedExecutionException e) {
+        // shut down in the meantime
+        replaying.set(false);
+      }
+    }
+  }
+
+  /**
+   * Sends the spooled events, oldest first, as long as slots are free.
+   */
+  private void replay() {
+    ReactorSpool spool = this.spool;
+    for (;;) {
+      while (spool != null && !spool.isEmpty() && tryAcquire()) {
+        Event<?> event;
+        try {
+          event = spool.poll();
+        } catch (IOException e) {
+          LOG.warn("Dropping a spooled event of " + endpoint.getEndpointUri()
+              + " that cannot be read", e);
+          release(1);
+          continue;
+        }
+        if (event == null) {
+          release(1);
+          break;
+        }
+        send(event);
+      }
+      replaying.set(false);
+      // a slot may have been given back after the last attempt
+      if (spool == null || spool.isEmpty() || pending.get() >= maxPending
+          || !replaying.compareAndSet(false, true)) {
+        return;
+      }
+    }
+  }
+
+  private void send(Event<?> event) {
+    Object key = endpoint.getSelectorObject();
+    try {
+      // recorded first, as a sync dispatcher delivers the event before notify returns
+      endpoint.getMetrics().published(1);
+      endpoint.getReactor().<Event<?>>notify(key, event, replayed);
+    } catch (Exception e) {
+      release(1);
+      LOG.warn("Failed to send to: " + key + " the spooled event: " + event, e);
+    }
+  }
+
+  private synchronized ReactorSpool getSpool() throws IOException {
+    if (stopped) {
+      throw new IOException("Flow controller of " + endpoint.getEndpointUri() + " is shut down");
+    }
+    if (spool == null) {
+      ReactorConfiguration configuration = endpoint.getConfiguration();
+      // named after the context as well as the endpoint, and in the shared temporary directory
+      // after this very spool too: opening a spool deletes the segments of its name
+      String name = endpoint.getCamelContext().getName() + "-" + endpoint.getEndpointKey();
+      File directory;
+      if (configuration.getSpoolDirectory() != null) {
+        directory = new File(configuration.getSpoolDirectory());
+      } else {
+        directory = new File(System.getProperty("java.io.tmpdir"), "camel-reactor");
+        name += "-" + endpoint.getCamelContext().getUuidGenerator().generateUuid();
+      }
+      name = name.replaceAll("[^A-Za-z0-9._-]", "_");
+      ReactorEventSerializer serializer =
+          configuration.getEventSerializer() != null ? configuration.getEventSerializer()
+              : new DefaultReactorEventSerializer();
+      spool = new ReactorSpool(directory, name, configuration.getSegmentSize(), serializer);
+    }
+    return spool;
+  }
+
+  public long getSpooledCount() {
+    ReactorSpool spool = this.spool;
+    return spool != null ? spool.size() : 0;
+  }
+
+  public int getPendingCount() {
+    return pending.get();
+  }
+
+  public int getWaitingCount() {
+    synchronized (waiting) {
+      return waiting.size();
+    }
+  }
+
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  public int getMaxPending() {
+    return maxPending;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * Stops sending the waiting and spooled events: waiting exchanges fail, and slots given back
+   * afterwards are not handed over any more.
+   */
+  public void shutdown() {
+    synchronized (this) {
+      stopped = true;
+      if (executor != null) {
+        endpoint.getCamelContext().getExecutorServiceManager().shutdown(executor);
+        executor = null;
+      }
+      if (spool != null) {
+        if (!spool.isEmpty()) {
+          LOG.warn("Discarding {} spooled events of {}", spool.size(), endpoint.getEndpointUri());
+        }
+        spool.close();
+        spool = null;
+      }
+    }
+    List<Waiting> abandoned;
+    synchronized (waiting) {
+      abandoned = new ArrayList<>(waiting);
+      waiting.clear();
+    }
+    for (Waiting next : abandoned) {
+      reject(next);
+    }
+  }
+
+  private void reject(Waiting next) {
+    next.exchange.setException(new RejectedExecutionException(endpoint.getEndpointUri()
+        + " is stopped"));
+    next.callback.done(false);
+  }
+
+  private boolean tryAcquire() {
+    for (;;) {
+      int current = pending.get();
+      if (current >= maxPending) {
+        return false;
+      }
+      if (pending.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void drop(Exchange exchange) {
+    dropped.incrementAndGet();
+    LOG.debug("Dropping exchange {}: {} events already pending on {}", exchange.getExchangeId(),
+        maxPending, endpoint.getEndpointUri());
+  }
+
+  private static final class Waiting {
+
+    private final Exchange exchange;
+    private final AsyncCallback callback;
+    private final Task task;
+
+    private Waiting(Exchange exchange, AsyncCallback callback, Task task) {
+      this.exchange = exchange;
+      this.callback = callback;
+      this.task = task;
+    }
+  }
+}
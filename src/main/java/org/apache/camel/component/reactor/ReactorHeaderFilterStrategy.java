@@ -15,11 +15,22 @@ package org.apache.camel.component.reactor;
 
 import org.apache.camel.impl.DefaultHeaderFilterStrategy;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author mmcalabro
  */
 public class ReactorHeaderFilterStrategy extends DefaultHeaderFilterStrategy {
 
+  /**
+   * The headers of the component never sent along with an event, filtered out of the box by
+   * {@link ReactorCompiledHeaderFilterStrategy} too.
+   */
+  public static final List<String> OUT_FILTER = Collections.unmodifiableList(Arrays.asList(
+      ReactorConstants.KEY, ReactorConstants.CORRELATION_ID, ReactorConstants.JOURNAL_POSITION));
+
   public ReactorHeaderFilterStrategy() {
     init();
   }
@@ -27,7 +38,7 @@ public class ReactorHeaderFilterStrategy extends DefaultHeaderFilterStrategy {
   protected void init() {
     // setOutFilterPattern(String.format("%s(?!%s|%s)[\\.|a-z|A-Z|0-9]+",
     // ReactorConstants.HEADER_PREFIX, ReactorConstants.KEY, ReactorConstants.REPLY_TO));
-    getOutFilter().add(ReactorConstants.KEY);
+    getOutFilter().addAll(OUT_FILTER);
     setOutFilterPattern("(?i)(Camel|org\\.apache\\.camel|JMS)[\\.|a-z|A-Z|0-9]*");
     setCaseInsensitive(true);
   }
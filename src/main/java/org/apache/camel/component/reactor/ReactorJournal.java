@@ -0,0 +1,361 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Reactor;
+import reactor.event.Event;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.camel.component.reactor.ReactorConstants.JOURNAL_POSITION;
+
+/**
+ * A write-ahead journal of the events of the journaled endpoints, for at-least-once delivery across
+ * restarts. Events are appended to a {@link ReactorSegmentLog}, and only sent once forced to the
+ * storage device, along with their key and their position in the
+ * {@link ReactorConstants#JOURNAL_POSITION} header; consumers acknowledge them once processed, in a
+ * second log. Opening a journal finds the events a previous run did not acknowledge, which
+ * {@link #replay} sends again.
+ * <p>
+ * The journal is forced by a single thread, once for all the events appended while it was forcing
+ * the previous ones: the more events are sent at once, the less each waits for the storage device.
+ * Segments are deleted once all their events are acknowledged.
+ * <p>
+ * The journal is point-to-point: an event is acknowledged by the first consumer that processes or
+ * drops it, and is not replayed to the other consumers of its key if they failed.
+ *
+ * @author mmcalabro
+ */
+public class ReactorJournal {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorJournal.class);
+
+  private static final long CLEANUP_INTERVAL = 1000;
+  private static final long CLOSE_TIMEOUT = 30;
+
+  private final String name;
+  private final ReactorSegmentLog entries;
+  private final ReactorSegmentLog acks;
+  private final ReactorEventSerializer serializer;
+  private final Object lock = new Object();
+  private final ConcurrentSkipListSet<Long> unacked = new ConcurrentSkipListSet<>();
+  private final AtomicLong pending = new AtomicLong();
+  private final AtomicLong syncs = new AtomicLong();
+  /**
+   * The greatest position acknowledged in each segment of the acknowledgements.
+   */
+  private final TreeMap<Integer, Long> acked = new TreeMap<>();
+  private final Map<Long, byte[]> recovered = new LinkedHashMap<>();
+  private final AtomicBoolean replayed = new AtomicBoolean();
+  private final CountDownLatch stopped = new CountDownLatch(1);
+  private List<Runnable> synced = new ArrayList<>();
+  private boolean running;
+  private boolean closed;
+
+  public ReactorJournal(File directory, String name, int segmentSize,
+      ReactorEventSerializer serializer) throws IOException {
+    this.name = name;
+    this.serializer = serializer;
+    this.entries = new ReactorSegmentLog(directory, name, segmentSize);
+    this.acks = new ReactorSegmentLog(directory, name + "-acks", segmentSize);
+    recover();
+  }
+
+  /**
+   * Finds the events not acknowledged by a previous run.
+   */
+  private void recover() {
+    Set<Long> done = new HashSet<>();
+    for (byte[] ack = acks.read(); ack != null; ack = acks.read()) {
+      long position = ByteBuffer.wrap(ack).getLong();
+      done.add(position);
+      track(ReactorSegmentLog.segmentOf(acks.getReadPosition()), position);
+    }
+    for (byte[] entry = entries.read(); entry != null; entry = entries.read()) {
+      long position = entries.getReadPosition();
+      if (!done.contains(position)) {
+        unacked.add(position);
+        recovered.put(position, entry);
+      }
+    }
+    pending.set(recovered.size());
+    if (!recovered.isEmpty()) {
+      LOG.info("Recovered {} events not acknowledged from journal {}", recovered.size(), name);
+    }
+    cleanup();
+  }
+
+  /**
+   * Starts forcing the journal on the given single thread executor.
+   */
+  public void start(ExecutorService executor) {
+    synchronized (lock) {
+      running = true;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        sync();
+      }
+    });
+  }
+
+  /**
+   * Appends the event sent to the given key, setting its position header, and runs the given task
+   * once the event is forced to the storage device, on the thread of the journal.
+   *
+   * @return the position of the event
+   */
+  public long append(Object key, Event<?> event, Runnable onSynced) throws IOException {
+    byte[] record = frame(serializer.serialize(Event.wrap(key)), serializer.serialize(event));
+    synchronized (lock) {
+      if (!running) {
+        throw new IOException("Journal " + name + " is closed");
+      }
+      long position = entries.append(record);
+      unacked.add(position);
+      pending.incrementAndGet();
+      event.getHeaders().set(JOURNAL_POSITION, position);
+      synced.add(onSynced);
+      lock.notify();
+      return position;
+    }
+  }
+
+  /**
+   * Acknowledges the event at the given position, not to be replayed on restart. The
+   * acknowledgement is forced along with the next events.
+   */
+  public void ack(long position) {
+    if (!unacked.remove(position)) {
+      // already acknowledged
+      return;
+    }
+    pending.decrementAndGet();
+    byte[] record = ByteBuffer.allocate(8).putLong(position).array();
+    synchronized (acked) {
+      if (closed) {
+        LOG.debug("Journal {} closed, the event at {} will be replayed", name, position);
+        return;
+      }
+      try {
+        track(ReactorSegmentLog.segmentOf(acks.append(record)), position);
+      } catch (IOException e) {
+        LOG.warn("Cannot acknowledge the event at " + position + " of journal " + name
+            + ", it will be replayed", e);
+      }
+    }
+  }
+
+  private void track(int segment, long position) {
+    synchronized (acked) {
+      Long max = acked.get(segment);
+      if (max == null || max < position) {
+        acked.put(segment, position);
+      }
+    }
+  }
+
+  /**
+   * Sends again, with the given reactor, the events a previous run did not acknowledge. Only the
+   * first call does: the events appended since are sent by their producers.
+   */
+  public void replay(Reactor reactor) {
+    if (!replayed.compareAndSet(false, true)) {
+      return;
+    }
+    Map<Long, byte[]> events;
+    synchronized (recovered) {
+      events = new LinkedHashMap<>(recovered);
+      recovered.clear();
+    }
+    LOG.debug("Replaying {} events of journal {}", events.size(), name);
+    for (Map.Entry<Long, byte[]> entry : events.entrySet()) {
+      long position = entry.getKey();
+      Object key;
+      Event<?> event;
+      try {
+        ByteBuffer record = ByteBuffer.wrap(entry.getValue());
+        key = serializer.deserialize(next(record)).getData();
+        event = serializer.deserialize(next(record));
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Dropping the event at " + position + " of journal " + name
+            + " that cannot be read", e);
+        ack(position);
+        continue;
+      }
+      if (key == null) {
+        LOG.warn("Dropping the event at {} of journal {} without key", position, name);
+        ack(position);
+        continue;
+      }
+      event.getHeaders().set(JOURNAL_POSITION, position);
+      try {
+        reactor.notify(key, event);
+      } catch (Exception e) {
+        LOG.warn("Failed to replay to: " + key + " the event at " + position + " of journal "
+            + name, e);
+      }
+    }
+  }
+
+  /**
+   * Frames the key and the event of a record, each preceded by its length, the key being journaled
+   * to replay the event but not sent.
+   */
+  private static byte[] frame(byte[] key, byte[] event) {
+    return ByteBuffer.allocate(8 + key.length + event.length).putInt(key.length).put(key)
+        .putInt(event.length).put(event).array();
+  }
+
+  private static byte[] next(ByteBuffer record) {
+    byte[] bytes = new byte[record.getInt()];
+    record.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Forces the events appended, then runs their tasks, until closed.
+   */
+  private void sync() {
+    try {
+      for (;;) {
+        List<Runnable> batch;
+        synchronized (lock) {
+          if (running && synced.isEmpty()) {
+            lock.wait(CLEANUP_INTERVAL);
+          }
+          if (!running && synced.isEmpty()) {
+            break;
+          }
+          batch = synced;
+          synced = new ArrayList<>();
+        }
+        if (!batch.isEmpty()) {
+          entries.force();
+          acks.force();
+          syncs.incrementAndGet();
+          for (Runnable task : batch) {
+            try {
+              task.run();
+            } catch (RuntimeException e) {
+              LOG.warn("Error sending a journaled event of journal " + name, e);
+            }
+          }
+        }
+        cleanup();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOG.warn("Interrupted forcing journal {}", name);
+    } finally {
+      closeLogs();
+      stopped.countDown();
+    }
+  }
+
+  private void closeLogs() {
+    synchronized (acked) {
+      closed = true;
+      acks.close();
+    }
+    entries.close();
+  }
+
+  /**
+   * Deletes the segments whose events are all acknowledged, then the segments of the
+   * acknowledgements of deleted events.
+   */
+  private void cleanup() {
+    synchronized (lock) {
+      // appended events are not acknowledged until added, under the same lock
+      int segment =
+          unacked.isEmpty() ? Integer.MAX_VALUE : ReactorSegmentLog.segmentOf(unacked.first());
+      if (segment > entries.getFirstSegment()) {
+        entries.deleteBefore(segment);
+      }
+    }
+    long first = ReactorSegmentLog.position(entries.getFirstSegment(), 0);
+    synchronized (acked) {
+      Iterator<Map.Entry<Integer, Long>> i = acked.entrySet().iterator();
+      while (i.hasNext() && i.next().getValue() < first) {
+        i.remove();
+      }
+      if (!closed) {
+        acks.deleteBefore(acked.isEmpty() ? Integer.MAX_VALUE : acked.firstKey());
+      }
+    }
+  }
+
+  /**
+   * Stops accepting events and waits for the events appended to be forced and sent.
+   */
+  public void close() {
+    synchronized (lock) {
+      if (!running) {
+        // never started
+        closeLogs();
+        return;
+      }
+      running = false;
+      lock.notify();
+    }
+    try {
+      if (!stopped.await(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+        LOG.warn("Timed out waiting for journal {} to close", name);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (pending.get() > 0) {
+      LOG.info("Closed journal {} with {} events not acknowledged", name, pending.get());
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the number of events not acknowledged yet
+   */
+  public long getPendingCount() {
+    return pending.get();
+  }
+
+  /**
+   * @return the number of times the journal was forced to the storage device
+   */
+  public long getSyncCount() {
+    return syncs.get();
+  }
+}
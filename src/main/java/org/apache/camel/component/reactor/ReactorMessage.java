@@ -22,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.event.Event;
 
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
@@ -34,6 +35,18 @@ public class ReactorMessage extends DefaultMessage {
 
   private ReactorBinding binding;
 
+  /**
+   * Whether the headers hold the entries of the previous event of a recycled message.
+   */
+  private boolean recycled;
+
+  /**
+   * The immutable body converted to the immutable types asked for, as long as the body is the
+   * same.
+   */
+  private Map<Class<?>, Object> conversions;
+  private Object convertedBody;
+
   public ReactorMessage(Event<?> event) {
     this.event = event;
     this.binding = null;
@@ -70,8 +83,49 @@ public class ReactorMessage extends DefaultMessage {
     this.binding = binding;
   }
 
+  /**
+   * Converts the body through the direct conversions of common payloads when possible, then the
+   * type converter registry. Conversions of an immutable body to an immutable type are cached by
+   * type; a body that may have been modified since, or a result its caller may modify, is converted
+   * anew every time.
+   */
+  @Override
+  public <T> T getBody(Class<T> type) {
+    Object body = getBody();
+    if (body == null || type.isInstance(body)) {
+      return type.cast(body);
+    }
+    boolean cacheable = ReactorBodyConversions.isImmutable(body);
+    if (cacheable) {
+      if (body != convertedBody) {
+        conversions = null;
+        convertedBody = body;
+      }
+      Object answer = conversions != null ? conversions.get(type) : null;
+      if (answer != null) {
+        return type.cast(answer);
+      }
+    }
+    Object answer = ReactorBodyConversions.convert(type, body, getExchange());
+    if (answer == null) {
+      answer = super.getBody(type);
+      if (answer == null) {
+        return null;
+      }
+    }
+    if (cacheable && ReactorBodyConversions.isImmutable(answer)) {
+      if (conversions == null) {
+        conversions = new IdentityHashMap<>(4);
+      }
+      conversions.put(type, answer);
+    }
+    return type.cast(answer);
+  }
+
   @Override
   public void setBody(Object body) {
+    conversions = null;
+    convertedBody = null;
     super.setBody(body);
     if (body == null) {
       ensureInitialHeaders();
@@ -81,6 +135,9 @@ public class ReactorMessage extends DefaultMessage {
 
   @Override
   public Object getHeader(String name) {
+    if (hasPopulatedHeaders() && getHeadersView() != null) {
+      return super.getHeader(name);
+    }
     Object answer = null;
     if (event != null) {
       try {
@@ -96,6 +153,27 @@ public class ReactorMessage extends DefaultMessage {
     return answer;
   }
 
+  /**
+   * Resets a message of the {@link ReactorMessagePool} for a new event, keeping its header map
+   * to be cleared and populated again on first access.
+   */
+  void recycle(Event<?> event) {
+    conversions = null;
+    convertedBody = null;
+    super.setBody(null);
+    setMessageId(null);
+    setFault(false);
+    this.event = event;
+    if (super.hasPopulatedHeaders()) {
+      recycled = true;
+    }
+  }
+
+  @Override
+  public boolean hasPopulatedHeaders() {
+    return !recycled && super.hasPopulatedHeaders();
+  }
+
   @Override
   public String toString() {
     if (event != null) {
@@ -146,12 +224,51 @@ public class ReactorMessage extends DefaultMessage {
     return new ReactorMessage(null, binding);
   }
 
+  /**
+   * @return the live header overlay when this message is in {@link HeaderMode#view} mode and its
+   *         headers have been accessed, {@code null} otherwise
+   */
+  public ReactorEventHeaders getHeadersView() {
+    if (hasPopulatedHeaders()) {
+      Map<String, Object> headers = super.getHeaders();
+      if (headers instanceof ReactorEventHeaders) {
+        return (ReactorEventHeaders) headers;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return whether the headers of this message are a view on the headers of its event
+   */
+  public boolean isHeaderView() {
+    if (getHeadersView() != null) {
+      return true;
+    }
+    ReactorBinding binding = getBinding();
+    return event != null && binding != null && binding.isHeaderView();
+  }
+
   protected void ensureInitialHeaders() {
+    if (recycled) {
+      recycled = false;
+      Map<String, Object> headers = super.getHeaders();
+      headers.clear();
+      populateInitialHeaders(headers);
+    }
     if (event == null && !hasPopulatedHeaders()) {
       super.setHeaders(createHeaders());
     }
   }
 
+  @Override
+  protected Map<String, Object> createHeaders() {
+    if (isHeaderView()) {
+      return new ReactorEventHeaders(event);
+    }
+    return super.createHeaders();
+  }
+
   @Override
   protected void populateInitialHeaders(Map<String, Object> map) {
     if (event != null && map != null) {
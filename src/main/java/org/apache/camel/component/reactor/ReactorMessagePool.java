@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.event.Event;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-local pool of the {@link ReactorMessage}s of the consumer exchanges of an endpoint.
+ * Exchanges are created for every event, only their in message, with its header map, is reset and
+ * reused by the thread that processed it, provided that {@link #release} finds no sign of the
+ * exchange escaping the route; otherwise the message is left to the garbage collector.
+ * <p>
+ * A route keeping an exchange, or its in message, beyond its completion in a way not detected
+ * here must set the {@link ReactorConstants#RETAINED} property, or the message would be reused
+ * for another event under its feet.
+ *
+ * @author mmcalabro
+ */
+final class ReactorMessagePool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorMessagePool.class);
+
+  /**
+   * Messages kept per thread, more than one for the nested exchanges of synchronous dispatchers.
+   */
+  private static final int MAX_PER_THREAD = 8;
+
+  private final ReactorEndpoint endpoint;
+  private final AtomicLong created = new AtomicLong();
+  private final AtomicLong discarded = new AtomicLong();
+  private final ThreadLocal<Messages> pool = new ThreadLocal<Messages>() {
+    @Override
+    protected Messages initialValue() {
+      return new Messages();
+    }
+  };
+
+  ReactorMessagePool(ReactorEndpoint endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  Exchange acquire(Event<?> event, ExchangePattern pattern) {
+    Messages messages = pool.get();
+    ReactorMessage message = messages.free.poll();
+    if (message == null) {
+      created.incrementAndGet();
+      message = new ReactorMessage(null, endpoint.getBinding());
+    }
+    message.recycle(event);
+    Exchange exchange = endpoint.createExchange(pattern);
+    exchange.setIn(message);
+    messages.lent.put(exchange, message);
+    return exchange;
+  }
+
+  /**
+   * Takes back the message of an exchange acquired on the current thread, even when the route has
+   * replaced the in message of the exchange since.
+   */
+  void release(Exchange exchange) {
+    Messages messages = pool.get();
+    ReactorMessage message = messages.lent.remove(exchange);
+    if (message == null) {
+      return;
+    }
+    if (exchange.getException() != null || message.hasAttachments()
+        || isRetained(exchange.getProperties())) {
+      discarded.incrementAndGet();
+      LOG.trace("Not recycling the message of exchange {}", exchange.getExchangeId());
+      return;
+    }
+    message.recycle(null);
+    message.setExchange(null);
+    if (messages.free.size() < MAX_PER_THREAD) {
+      messages.free.push(message);
+    }
+  }
+
+  private static boolean isRetained(Map<String, Object> properties) {
+    return properties.containsKey(ReactorConstants.RETAINED)
+        || properties.containsKey(Exchange.AGGREGATED_SIZE)
+        || properties.containsKey(Exchange.FAILURE_HANDLED)
+        || properties.containsKey(Exchange.ERRORHANDLER_HANDLED);
+  }
+
+  long getCreatedCount() {
+    return created.get();
+  }
+
+  long getDiscardedCount() {
+    return discarded.get();
+  }
+
+  private static final class Messages {
+
+    private final ArrayDeque<ReactorMessage> free = new ArrayDeque<>(MAX_PER_THREAD);
+    private final Map<Exchange, ReactorMessage> lent = new IdentityHashMap<>(MAX_PER_THREAD);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+/**
+ * Records what happens on a Reactor endpoint. One instance is created per endpoint by the
+ * {@link ReactorMetricsFactory} configured on it, and is invoked concurrently by its producers,
+ * consumers and dispatcher threads: implementations must be thread safe and should neither lock
+ * nor allocate, as they are invoked on every event.
+ *
+ * @author mmcalabro
+ */
+public interface ReactorMetrics {
+
+  /**
+   * Records nothing, used when metrics are disabled.
+   */
+  ReactorMetrics NONE = new ReactorMetrics() {
+
+    @Override
+    public void published(int events) {}
+
+    @Override
+    public void dispatched(int events) {}
+
+    @Override
+    public void consumed(int events) {}
+
+    @Override
+    public void processed(long nanos) {}
+
+    @Override
+    public void replied(long nanos) {}
+
+    @Override
+    public void timedOut() {}
+  };
+
+  /**
+   * Events handed to the dispatcher by the producers.
+   */
+  void published(int events);
+
+  /**
+   * Events published by the producers and delivered by the dispatcher, InOut requests included
+   * whether replied to or not.
+   */
+  void dispatched(int events);
+
+  /**
+   * Events received by the consumers.
+   */
+  void consumed(int events);
+
+  /**
+   * Time spent by a consumer processing an exchange.
+   */
+  void processed(long nanos);
+
+  /**
+   * Round-trip time of an InOut exchange, from the request to its reply.
+   */
+  void replied(long nanos);
+
+  /**
+   * An InOut exchange timed out waiting for its reply.
+   */
+  void timedOut();
+}
@@ -18,14 +18,23 @@ import org.apache.camel.Exchange;
 import org.apache.camel.InvalidPayloadRuntimeException;
 import org.apache.camel.impl.DefaultAsyncProducer;
 import org.apache.camel.util.ExchangeHelper;
-import org.apache.camel.util.MessageHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.Reactor;
 import reactor.event.Event;
+import reactor.event.selector.Selector;
+import reactor.event.selector.Selectors;
 import reactor.function.Consumer;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.camel.component.reactor.ReactorConstants.CORRELATION_ID;
 
 /**
  * @author mmcalabro
@@ -34,17 +43,106 @@ public class ReactorProducer extends DefaultAsyncProducer {
 
   private static final Logger LOG = LoggerFactory.getLogger(ReactorProducer.class);
 
+  private ScheduledExecutorService scheduler;
+
+  private ExecutorService timeouts;
+
+  private ReactorBatcher<Event<?>> batcher;
+
+  private ReactorReplyManager replyManager;
+
+  private ReactorMetrics metrics = ReactorMetrics.NONE;
+
+  private Release dispatched;
+
+  private Release requested;
+
+  private ReactorBufferPool bufferPool;
+
+  private ReactorJournal journal;
+
   public ReactorProducer(ReactorEndpoint endpoint) {
     super(endpoint);
   }
 
+  @Override
+  protected void doStart() throws Exception {
+    super.doStart();
+    final ReactorConfiguration configuration = getEndpoint().getConfiguration();
+    metrics = getEndpoint().getMetrics();
+    journal = getEndpoint().getJournal();
+    ReactorFlowController flowController = getEndpoint().getFlowController();
+    if (getEndpoint().getComponent() instanceof ReactorComponent) {
+      bufferPool = getEndpoint().getBufferPool();
+    }
+    if (flowController != null || metrics != ReactorMetrics.NONE || bufferPool != null) {
+      // shared by all the InOnly events, not to allocate a callback per event
+      dispatched = new Release(flowController, metrics, bufferPool, 1);
+    }
+    if (metrics != ReactorMetrics.NONE) {
+      // InOut events are dispatched once delivered too, their slots only given back on reply
+      requested = new Release(null, metrics, null, 1);
+    }
+    if (configuration.getRequestTimeout() > 0) {
+      timeouts =
+          getEndpoint().getCamelContext().getExecutorServiceManager()
+              .newDefaultThreadPool(this, "ReactorRequestTimeout");
+    }
+    if (configuration.isReplyManager()) {
+      replyManager = new ReactorReplyManager();
+      replyManager.start(getEndpoint().getReactor());
+    }
+    if (configuration.getProducerBatchSize() > 0) {
+      scheduler =
+          getEndpoint().getCamelContext().getExecutorServiceManager()
+              .newSingleThreadScheduledExecutor(this, "ReactorBatchProducer");
+      batcher =
+          new ReactorBatcher<Event<?>>(configuration.getProducerBatchSize(),
+              configuration.getProducerBatchTimeout(), scheduler) {
+            @Override
+            protected void onBatch(List<Event<?>> batch) {
+              publish(batch);
+            }
+          };
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    if (replyManager != null) {
+      replyManager.stop();
+      replyManager = null;
+    }
+    if (timeouts != null) {
+      getEndpoint().getCamelContext().getExecutorServiceManager().shutdown(timeouts);
+      timeouts = null;
+    }
+    journal = null;
+    if (batcher != null) {
+      // events still sent while stopping are published one by one, without the scheduler
+      batcher.close();
+      batcher = null;
+      getEndpoint().getCamelContext().getExecutorServiceManager().shutdownNow(scheduler);
+      scheduler = null;
+    }
+    super.doStop();
+  }
+
   @Override
   public ReactorEndpoint getEndpoint() {
     return (ReactorEndpoint) super.getEndpoint();
   }
 
+  /**
+   * @return the reply manager of the producer, {@code null} unless started with
+   *         {@code replyManager}
+   */
+  ReactorReplyManager getReplyManager() {
+    return replyManager;
+  }
+
   @Override
-  public boolean process(Exchange exchange, AsyncCallback callback) {
+  public boolean process(final Exchange exchange, final AsyncCallback callback) {
     if (!isRunAllowed()) {
       if (exchange.getException() == null) {
         exchange.setException(new RejectedExecutionException());
@@ -53,56 +151,262 @@ public class ReactorProducer extends DefaultAsyncProducer {
       callback.done(true);
       return true;
     }
-    Reactor reactor = getEndpoint().getReactor();
-    final Object key = getEndpoint().getSelectorObject();
-    boolean reply = ExchangeHelper.isOutCapable(exchange);
     // Event<?> event = ReactorMessageHelper.getReactorEvent(exchange);
-    Event<?> event =
+    final Event<?> event =
         getEndpoint().getBinding().createReactorEvent(exchange,
             exchange.hasOut() ? exchange.getOut() : exchange.getIn());
-    if (event != null) {
-      if (reply) {
+    if (event == null) {
+      exchange.setException(new InvalidPayloadRuntimeException(exchange, String.class));
+      callback.done(true);
+      return true;
+    }
+    if (journal != null && !ExchangeHelper.isOutCapable(exchange)) {
+      return journal(exchange, event, callback);
+    }
+    return dispatch(exchange, event, callback);
+  }
+
+  /**
+   * Appends the event of an InOnly exchange to the journal, and dispatches it once forced to disk:
+   * the exchange completes asynchronously, on the thread of the journal.
+   */
+  private boolean journal(final Exchange exchange, final Event<?> event,
+      final AsyncCallback callback) {
+    try {
+      journal.append(getEndpoint().getSelectorObject(), event, new Runnable() {
+        @Override
+        public void run() {
+          dispatch(exchange, event, new AsyncCallback() {
+            @Override
+            public void done(boolean doneSync) {
+              // process has already returned
+              callback.done(false);
+            }
+          });
+        }
+      });
+    } catch (IOException e) {
+      exchange.setException(e);
+      callback.done(true);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Sends the event of the exchange, through the flow controller, if any.
+   */
+  private boolean dispatch(final Exchange exchange, final Event<?> event,
+      final AsyncCallback callback) {
+    final ReactorFlowController flowController = getEndpoint().getFlowController();
+    if (flowController == null) {
+      return send(exchange, event, callback, null, true);
+    }
+    return flowController.submit(exchange, event, callback, new ReactorFlowController.Task() {
+      @Override
+      public boolean run(boolean sync) {
+        return send(exchange, event, callback, flowController, sync);
+      }
+    });
+  }
+
+  /**
+   * Sends the event of the exchange, giving back its slot to the flow controller, if any, once the
+   * event is delivered or its reply received.
+   */
+  protected boolean send(Exchange exchange, Event<?> event, AsyncCallback callback,
+      ReactorFlowController flowController, boolean sync) {
+    Reactor reactor = getEndpoint().getReactor();
+    final Object key = getEndpoint().getSelectorObject();
+    boolean held = false;
+    try {
+      if (ExchangeHelper.isOutCapable(exchange)) {
         LOG.debug("Sending to: {} the event: {}", key, event);
-        reactor.sendAndReceive(key, event, new ReplyHandler(exchange, callback));
+        // recorded first, as a sync dispatcher delivers the event before notify returns
+        metrics.published(1);
+        sendAndReceive(reactor, key, event,
+            new ReactorReplyHandler(exchange, callback, flowController, metrics));
         return false;
+      } else if (batcher != null) {
+        // the exchange is complete once its event is accepted in the batch, not to hold a
+        // sequential sender for the whole batch timeout: a failed batch is logged instead
+        held = holdBuffer(event);
+        batcher.add(event);
+      } else if (dispatched != null) {
+        LOG.debug("Sending to: {} the event: {}", key, event);
+        held = holdBuffer(event);
+        metrics.published(1);
+        reactor.<Event<?>>notify(key, event, dispatched);
       } else {
         LOG.debug("Sending to: {} the event: {}", key, event);
+        metrics.published(1);
+        reactor.notify(key, event);
+      }
+    } catch (Exception e) {
+      if (flowController != null) {
+        flowController.release(1);
+      }
+      if (held) {
+        bufferPool.release(ReactorBufferPool.bufferOf(event.getData()));
+      }
+      exchange.setException(e);
+    }
+    callback.done(sync);
+    return sync;
+  }
+
+  /**
+   * Holds a reference to the pooled buffer of an InOnly event until the dispatcher has routed it
+   * to the consumers, which hold their own: the sender may release its reference as soon as the
+   * exchange completes. With {@code releaseBuffers}, the reference of the sender is handed over
+   * instead.
+   *
+   * @return whether a reference is held, to release once the event is routed
+   */
+  private boolean holdBuffer(Event<?> event) {
+    ByteBuffer buffer = ReactorBufferPool.bufferOf(event.getData());
+    if (buffer == null || bufferPool == null) {
+      return false;
+    }
+    return getEndpoint().getConfiguration().isReleaseBuffers() || bufferPool.retain(buffer);
+  }
+
+  /**
+   * Same as {@link Reactor#sendAndReceive} but keeps hold of the reply registration, to cancel it
+   * when no reply is received within {@code requestTimeout}. With a reply manager, the reply is
+   * received on its shared selector and matched to the request by correlation id instead.
+   */
+  private void sendAndReceive(Reactor reactor, Object key, Event<?> event,
+      final ReactorReplyHandler handler) {
+    if (replyManager != null) {
+      event.getHeaders().set(CORRELATION_ID, replyManager.register(handler));
+      event.setReplyTo(replyManager.getReplyTo());
+    } else {
+      Selector replyTo = Selectors.anonymous();
+      handler.registration = reactor.on(replyTo, handler).cancelAfterUse();
+      event.setReplyTo(replyTo.getObject());
+    }
+    final long requestTimeout = getEndpoint().getConfiguration().getRequestTimeout();
+    if (requestTimeout > 0) {
+      handler.timeout = getEndpoint().getTimer().submit(new Consumer<Long>() {
+        @Override
+        public void accept(Long now) {
+          onTimeout(handler, requestTimeout);
+        }
+      }, requestTimeout, TimeUnit.MILLISECONDS);
+    }
+    try {
+      if (requested != null) {
+        reactor.<Event<?>>notify(key, event, requested);
+      } else {
         reactor.notify(key, event);
-        callback.done(true);
-        return true;
       }
+    } catch (RuntimeException e) {
+      if (handler.registration != null) {
+        handler.registration.cancel();
+      }
+      if (handler.timeout != null) {
+        handler.timeout.cancel();
+      }
+      if (replyManager != null) {
+        replyManager.remove(handler.correlationId);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Fails the exchange of a request timed out on a thread of the producer rather than on the timer
+   * thread shared by the whole component, as its callback may well continue the route.
+   */
+  private void onTimeout(final ReactorReplyHandler handler, final long requestTimeout) {
+    ExecutorService executor = timeouts;
+    if (executor != null) {
+      try {
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            handler.onTimeout(requestTimeout);
+          }
+        });
+        return;
+      } catch (RejectedExecutionException e) {
+        // stopped in the meantime
+      }
+    }
+    handler.onTimeout(requestTimeout);
+  }
 
+  /**
+   * Publishes a batch of events with a single notify, the consumers process them one by one. The
+   * exchanges of the events are already complete, a failure to publish is logged.
+   */
+  protected void publish(List<Event<?>> batch) {
+    Object key = getEndpoint().getSelectorObject();
+    ReactorFlowController flowController = getEndpoint().getFlowController();
+    LOG.debug("Sending to: {} a batch of {} events", key, batch.size());
+    try {
+      if (flowController != null || metrics != ReactorMetrics.NONE || bufferPool != null) {
+        metrics.published(batch.size());
+        getEndpoint().getReactor().<Event<?>>notify(key, ReactorBinding.createBatch(batch),
+            new Release(flowController, metrics, bufferPool, batch.size()));
+      } else {
+        getEndpoint().getReactor().notify(key, ReactorBinding.createBatch(batch));
+      }
+    } catch (Exception e) {
+      if (flowController != null) {
+        flowController.release(batch.size());
+      }
+      if (bufferPool != null) {
+        for (Event<?> event : batch) {
+          Release.releaseBuffer(bufferPool, event);
+        }
+      }
+      LOG.warn("Failed to send a batch of " + batch.size() + " events to: " + key, e);
     }
-    exchange.setException(new InvalidPayloadRuntimeException(exchange, String.class));
-    callback.done(true);
-    return true;
   }
 
-  private static final class ReplyHandler implements Consumer<Event<?>> {
+  /**
+   * Gives back the slots of an event, if flow controlled, and the references held to the pooled
+   * buffers of its events, once the dispatcher has delivered it.
+   */
+  private static final class Release implements Consumer<Event<?>> {
 
-    private final Exchange exchange;
-    private final AsyncCallback callback;
+    private final ReactorFlowController flowController;
+    private final ReactorMetrics metrics;
+    private final ReactorBufferPool bufferPool;
+    private final int slots;
 
-    public ReplyHandler(Exchange exchange, AsyncCallback callback) {
-      this.exchange = exchange;
-      this.callback = callback;
+    private Release(ReactorFlowController flowController, ReactorMetrics metrics,
+        ReactorBufferPool bufferPool, int slots) {
+      this.flowController = flowController;
+      this.metrics = metrics;
+      this.bufferPool = bufferPool;
+      this.slots = slots;
     }
 
     @Override
     public void accept(Event<?> event) {
-      try {
-        // preserve headers
-        MessageHelper.copyHeaders(exchange.getIn(), exchange.getOut(), false);
-        exchange.setOut(new ReactorMessage(event, null));
-        // Map<String, Object> headers = out.getHeaders();
-        // for (String s : headers.keySet()) {
-        // if (s.startsWith("reactor.")) {
-        // headers.remove(s);
-        // }
-        // }
-        // ReactorMessageHelper.fillMessage(event, out);
-      } finally {
-        callback.done(false);
+      metrics.dispatched(slots);
+      if (flowController != null) {
+        flowController.release(slots);
+      }
+      if (bufferPool == null) {
+        return;
+      }
+      if (ReactorBinding.isBatch(event)) {
+        for (Object e : (List<?>) event.getData()) {
+          releaseBuffer(bufferPool, (Event<?>) e);
+        }
+      } else {
+        releaseBuffer(bufferPool, event);
+      }
+    }
+
+    private static void releaseBuffer(ReactorBufferPool bufferPool, Event<?> event) {
+      ByteBuffer buffer = ReactorBufferPool.bufferOf(event.getData());
+      if (buffer != null) {
+        bufferPool.release(buffer);
       }
     }
   }
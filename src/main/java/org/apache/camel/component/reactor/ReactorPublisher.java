@@ -0,0 +1,236 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.event.Event;
+import reactor.event.registry.Registration;
+import reactor.function.Consumer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Reactive Streams {@link Publisher} of the events received by the selector of an endpoint, as
+ * InOnly exchanges. Each subscription registers on the reactor and delivers as many exchanges as
+ * requested; the events received without demand are buffered, up to {@code prefetch} events, and
+ * then handled according to the {@link OverflowPolicy} of the endpoint: {@code drop} and
+ * {@code dropOldest} drop events, {@code block} and {@code fail} cancel the subscription and
+ * signal a {@link RejectedExecutionException}, as the dispatcher cannot be blocked.
+ * <p>
+ * The publisher never completes: subscriptions last until cancelled.
+ *
+ * @author mmcalabro
+ */
+public class ReactorPublisher implements Publisher<Exchange> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorPublisher.class);
+
+  private final ReactorEndpoint endpoint;
+
+  public ReactorPublisher(ReactorEndpoint endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super Exchange> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("Subscriber must not be null");
+    }
+    new ReactorSubscription(endpoint, subscriber).start();
+  }
+
+  private static final class ReactorSubscription implements Subscription, Consumer<Event<?>> {
+
+    private final ReactorEndpoint endpoint;
+    private final Subscriber<? super Exchange> subscriber;
+    private final ReactorMetrics metrics;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Queue<Event<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile Registration<?> registration;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    private ReactorSubscription(ReactorEndpoint endpoint, Subscriber<? super Exchange> subscriber) {
+      this.endpoint = endpoint;
+      this.subscriber = subscriber;
+      this.metrics = endpoint.getMetrics();
+      this.capacity = Math.max(1, endpoint.getConfiguration().getPrefetch());
+      this.overflowPolicy = endpoint.getConfiguration().getOverflowPolicy();
+    }
+
+    private void start() {
+      subscriber.onSubscribe(this);
+      if (cancelled) {
+        return;
+      }
+      try {
+        registration = endpoint.register(this);
+      } catch (RuntimeException e) {
+        error = e;
+        drain();
+        return;
+      }
+      // cancelled while registering
+      if (cancelled) {
+        registration.cancel();
+      }
+    }
+
+    @Override
+    public void accept(Event<?> event) {
+      if (ReactorBinding.isBatch(event)) {
+        for (Event<?> e : ReactorBinding.getBatch(event)) {
+          offer(e);
+        }
+      } else {
+        offer(event);
+      }
+      drain();
+    }
+
+    private void offer(Event<?> event) {
+      if (cancelled || error != null) {
+        return;
+      }
+      if (size.incrementAndGet() > capacity) {
+        switch (overflowPolicy) {
+          case drop:
+            size.decrementAndGet();
+            LOG.debug("Dropping event {}: {} events already buffered", event.getId(), capacity);
+            return;
+          case dropOldest:
+            Event<?> oldest = queue.poll();
+            if (oldest != null) {
+              size.decrementAndGet();
+              LOG.debug("Dropping event {}: {} events already buffered", oldest.getId(),
+                  capacity);
+            }
+            break;
+          default:
+            size.decrementAndGet();
+            error = new RejectedExecutionException(capacity
+                + " events already buffered for a subscriber of " + endpoint.getEndpointUri());
+            return;
+        }
+      }
+      queue.offer(event);
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        error = new IllegalArgumentException("Requested " + n + " exchanges, must be positive");
+      } else {
+        for (;;) {
+          long current = requested.get();
+          long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+          if (requested.compareAndSet(current, next)) {
+            break;
+          }
+        }
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      Registration<?> registration = this.registration;
+      if (registration != null) {
+        registration.cancel();
+      }
+      drain();
+    }
+
+    /**
+     * Delivers the buffered events as long as there is demand, from one thread at a time.
+     */
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      for (;;) {
+        if (terminated()) {
+          return;
+        }
+        long demand = requested.get();
+        long delivered = 0;
+        while (delivered != demand) {
+          Event<?> event = queue.poll();
+          if (event == null) {
+            break;
+          }
+          size.decrementAndGet();
+          deliver(event);
+          delivered++;
+          if (terminated()) {
+            return;
+          }
+        }
+        if (delivered != 0 && demand != Long.MAX_VALUE) {
+          requested.addAndGet(-delivered);
+        }
+        missed = wip.addAndGet(-missed);
+        if (missed == 0) {
+          return;
+        }
+      }
+    }
+
+    private void deliver(Event<?> event) {
+      Exchange exchange = endpoint.createExchange(ExchangePattern.InOnly);
+      exchange.setIn(new ReactorMessage(event, endpoint.getBinding()));
+      metrics.consumed(1);
+      try {
+        subscriber.onNext(exchange);
+      } catch (RuntimeException e) {
+        LOG.warn("Cancelling the subscription of " + subscriber + ", failed on next", e);
+        cancel();
+      }
+    }
+
+    /**
+     * @return whether the subscription is over, signalling its error if failed
+     */
+    private boolean terminated() {
+      if (cancelled) {
+        queue.clear();
+        return true;
+      }
+      Throwable failure = error;
+      if (failure != null) {
+        cancel();
+        queue.clear();
+        subscriber.onError(failure);
+        return true;
+      }
+      return false;
+    }
+  }
+}
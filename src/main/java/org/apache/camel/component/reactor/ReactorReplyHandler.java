@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.util.MessageHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.event.Event;
+import reactor.event.registry.Registration;
+import reactor.function.Consumer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Completes an InOut exchange with its reply or, after {@code requestTimeout}, with an
+ * {@link ExchangeTimedOutException}, whichever comes first. Whatever completes the exchange, the
+ * reply registration, or the entry in the {@link ReactorReplyManager}, is removed, so that neither
+ * outlives the request. Late replies are ignored.
+ *
+ * @author mmcalabro
+ */
+final class ReactorReplyHandler implements Consumer<Event<?>> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorReplyHandler.class);
+
+  private final AtomicBoolean done = new AtomicBoolean();
+  private final Exchange exchange;
+  private final AsyncCallback callback;
+  private final ReactorFlowController flowController;
+  private final ReactorMetrics metrics;
+  private final long start = System.nanoTime();
+  volatile Registration<?> registration;
+  volatile Registration<?> timeout;
+  volatile ReactorReplyManager replyManager;
+  volatile Object correlationId;
+
+  ReactorReplyHandler(Exchange exchange, AsyncCallback callback,
+      ReactorFlowController flowController, ReactorMetrics metrics) {
+    this.exchange = exchange;
+    this.callback = callback;
+    this.flowController = flowController;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void accept(Event<?> event) {
+    if (!tryComplete()) {
+      LOG.debug("Ignoring late reply {} to exchange {}", event, exchange.getExchangeId());
+      return;
+    }
+    metrics.replied(System.nanoTime() - start);
+    try {
+      // preserve headers
+      MessageHelper.copyHeaders(exchange.getIn(), exchange.getOut(), false);
+      exchange.setOut(new ReactorMessage(event, null));
+      // Map<String, Object> headers = out.getHeaders();
+      // for (String s : headers.keySet()) {
+      // if (s.startsWith("reactor.")) {
+      // headers.remove(s);
+      // }
+      // }
+      // ReactorMessageHelper.fillMessage(event, out);
+    } finally {
+      callback.done(false);
+    }
+  }
+
+  void onTimeout(long requestTimeout) {
+    LOG.debug("No reply received in {} ms for exchange {}", requestTimeout,
+        exchange.getExchangeId());
+    metrics.timedOut();
+    fail(new ExchangeTimedOutException(exchange, requestTimeout));
+  }
+
+  void fail(Exception cause) {
+    if (tryComplete()) {
+      exchange.setException(cause);
+      callback.done(false);
+    }
+  }
+
+  private boolean tryComplete() {
+    if (!done.compareAndSet(false, true)) {
+      return false;
+    }
+    if (timeout != null) {
+      timeout.cancel();
+    }
+    if (registration != null) {
+      registration.cancel();
+    }
+    if (replyManager != null) {
+      replyManager.remove(correlationId);
+    }
+    if (flowController != null) {
+      flowController.release(1);
+    }
+    return true;
+  }
+}
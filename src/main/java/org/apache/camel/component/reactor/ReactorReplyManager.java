@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.CamelExchangeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Reactor;
+import reactor.event.Event;
+import reactor.event.registry.Registration;
+import reactor.event.selector.Selector;
+import reactor.event.selector.Selectors;
+import reactor.function.Consumer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.camel.component.reactor.ReactorConstants.CORRELATION_ID;
+
+/**
+ * Receives the replies to the InOut exchanges of a producer on a single, long-lived reply
+ * selector, instead of registering a one-shot reply consumer per request. Requests carry a
+ * {@link ReactorConstants#CORRELATION_ID} header that the {@link ReactorConsumer} copies into the
+ * reply, which is then handed to the exchange waiting for it.
+ *
+ * @author mmcalabro
+ */
+final class ReactorReplyManager implements Consumer<Event<?>> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorReplyManager.class);
+
+  private final Selector replyTo = Selectors.anonymous();
+  private final ConcurrentMap<Object, ReactorReplyHandler> handlers = new ConcurrentHashMap<>();
+  private final AtomicLong correlationIds = new AtomicLong();
+  private Registration<?> registration;
+
+  void start(Reactor reactor) {
+    registration = reactor.on(replyTo, this);
+  }
+
+  /**
+   * Cancels the reply registration and fails the exchanges still waiting for a reply.
+   */
+  void stop() {
+    if (registration != null) {
+      registration.cancel();
+      registration = null;
+    }
+    for (ReactorReplyHandler handler : handlers.values()) {
+      handler.fail(new CamelExchangeException("Producer stopped before the reply was received",
+          null));
+    }
+  }
+
+  Object getReplyTo() {
+    return replyTo.getObject();
+  }
+
+  /**
+   * Makes the handler wait for the reply of a new request.
+   *
+   * @return the correlation id of the request
+   */
+  Object register(ReactorReplyHandler handler) {
+    Long correlationId = correlationIds.incrementAndGet();
+    handler.replyManager = this;
+    handler.correlationId = correlationId;
+    handlers.put(correlationId, handler);
+    return correlationId;
+  }
+
+  void remove(Object correlationId) {
+    handlers.remove(correlationId);
+  }
+
+  int getWaitingCount() {
+    return handlers.size();
+  }
+
+  @Override
+  public void accept(Event<?> event) {
+    Object correlationId = event.getHeaders().get(CORRELATION_ID);
+    ReactorReplyHandler handler = correlationId == null ? null : handlers.get(correlationId);
+    if (handler == null) {
+      LOG.debug("Ignoring reply {}: no exchange waiting for correlation id {}", event,
+          correlationId);
+      return;
+    }
+    handler.accept(event);
+  }
+}
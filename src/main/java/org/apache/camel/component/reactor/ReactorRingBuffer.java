@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.RingBuffer;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A named, pre-allocated Disruptor ring of mutable slots, shared by the producers and the consumer
+ * of the {@code reactor:ringbuffer:<name>} endpoints. Events bypass the Reactor event bus: there
+ * is no selector matching and no {@link reactor.event.Event} allocated per message.
+ * <p>
+ * The ring is point-to-point: it has at most one consumer at a time, and the InOnly events
+ * published while it has none are overwritten. InOut events are refused while there is no consumer
+ * processing the ring, as nothing would ever complete their exchange.
+ *
+ * @author mmcalabro
+ */
+public class ReactorRingBuffer {
+
+  private static final EventFactory<Slot> FACTORY = new EventFactory<Slot>() {
+    @Override
+    public Slot newInstance() {
+      return new Slot();
+    }
+  };
+
+  private final String name;
+  private final RingBuffer<Slot> ringBuffer;
+  private final AtomicInteger publishing = new AtomicInteger();
+  private Object consumer;
+  private volatile boolean consuming;
+
+  public ReactorRingBuffer(String name, int bufferSize, WaitStrategyType waitStrategy) {
+    if (Integer.bitCount(bufferSize) != 1) {
+      throw new IllegalArgumentException("bufferSize must be a power of 2: " + bufferSize);
+    }
+    this.name = name;
+    this.ringBuffer = RingBuffer.createMultiProducer(FACTORY, bufferSize, waitStrategy.create());
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public RingBuffer<Slot> getRingBuffer() {
+    return ringBuffer;
+  }
+
+  /**
+   * Publishes a message, waiting for a free slot when the ring is full. The exchange and its
+   * callback are given for InOut exchanges only, to be completed by the consumer.
+   *
+   * @return {@code false} when an InOut exchange is refused as no consumer is processing the ring
+   */
+  public boolean publish(Object body, Map<String, Object> headers, Exchange exchange,
+      AsyncCallback callback) {
+    if (exchange == null) {
+      doPublish(body, headers, null, null);
+      return true;
+    }
+    publishing.incrementAndGet();
+    try {
+      if (!consuming) {
+        return false;
+      }
+      doPublish(body, headers, exchange, callback);
+      return true;
+    } finally {
+      publishing.decrementAndGet();
+    }
+  }
+
+  private void doPublish(Object body, Map<String, Object> headers, Exchange exchange,
+      AsyncCallback callback) {
+    long sequence = ringBuffer.next();
+    try {
+      Slot slot = ringBuffer.get(sequence);
+      slot.body = body;
+      slot.headers = headers;
+      slot.exchange = exchange;
+      slot.callback = callback;
+    } finally {
+      ringBuffer.publish(sequence);
+    }
+  }
+
+  /**
+   * @return the number of slots free to publish into
+   */
+  public long getRemainingCapacity() {
+    return ringBuffer.remainingCapacity();
+  }
+
+  synchronized void subscribe(Object consumer) {
+    if (this.consumer != null && this.consumer != consumer) {
+      throw new IllegalStateException("Ring buffer " + name + " already has a consumer: "
+          + this.consumer);
+    }
+    this.consumer = consumer;
+  }
+
+  /**
+   * Starts or stops accepting InOut events. Once stopped, the InOut events being published are
+   * waited for, to be processed by the consumer before it halts.
+   */
+  void setConsuming(boolean consuming) {
+    this.consuming = consuming;
+    if (!consuming) {
+      while (publishing.get() > 0) {
+        Thread.yield();
+      }
+    }
+  }
+
+  synchronized void unsubscribe(Object consumer) {
+    if (this.consumer == consumer) {
+      this.consumer = null;
+    }
+  }
+
+  /**
+   * A mutable slot of the ring, cleared by the consumer once read.
+   */
+  public static final class Slot {
+
+    Object body;
+    Map<String, Object> headers;
+    Exchange exchange;
+    AsyncCallback callback;
+
+    void clear() {
+      body = null;
+      headers = null;
+      exchange = null;
+      callback = null;
+    }
+  }
+}
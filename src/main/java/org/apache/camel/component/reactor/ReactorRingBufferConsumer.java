@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.WorkHandler;
+import com.lmax.disruptor.WorkerPool;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.component.reactor.ReactorRingBuffer.Slot;
+import org.apache.camel.impl.DefaultConsumer;
+import org.apache.camel.spi.ExecutorServiceManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Consumes the {@link ReactorRingBuffer} of the endpoint: with a {@link BatchEventProcessor} on one
+ * thread, or with a {@link WorkerPool} of {@code concurrentConsumers} threads. Events are processed
+ * synchronously, from the cursor of the ring at the time the consumer starts.
+ *
+ * @author mmcalabro
+ */
+public class ReactorRingBufferConsumer extends DefaultConsumer
+    implements EventHandler<Slot>, WorkHandler<Slot>, ExceptionHandler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorRingBufferConsumer.class);
+
+  private ReactorRingBuffer ringBuffer;
+  private ReactorMetrics metrics = ReactorMetrics.NONE;
+  private ExecutorService executor;
+  private BatchEventProcessor<Slot> processor;
+  private WorkerPool<Slot> workerPool;
+
+  public ReactorRingBufferConsumer(ReactorEndpoint endpoint, Processor processor) {
+    super(endpoint, processor);
+  }
+
+  @Override
+  public ReactorEndpoint getEndpoint() {
+    return (ReactorEndpoint) super.getEndpoint();
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    super.doStart();
+    ringBuffer = getEndpoint().getRingBuffer();
+    ringBuffer.subscribe(this);
+    metrics = getEndpoint().getMetrics();
+    RingBuffer<Slot> ring = ringBuffer.getRingBuffer();
+    ExecutorServiceManager manager = getEndpoint().getCamelContext().getExecutorServiceManager();
+    String threadName = "ReactorRingBuffer-" + ringBuffer.getName();
+    int concurrentConsumers = getEndpoint().getConfiguration().getConcurrentConsumers();
+    if (concurrentConsumers > 1) {
+      @SuppressWarnings("unchecked")
+      WorkHandler<Slot>[] handlers = (WorkHandler<Slot>[]) new WorkHandler<?>[concurrentConsumers];
+      for (int i = 0; i < concurrentConsumers; i++) {
+        handlers[i] = this;
+      }
+      workerPool = new WorkerPool<Slot>(ring, ring.newBarrier(), this, handlers);
+      ring.addGatingSequences(workerPool.getWorkerSequences());
+      executor = manager.newFixedThreadPool(this, threadName, concurrentConsumers);
+      workerPool.start(executor);
+    } else {
+      processor = new BatchEventProcessor<Slot>(ring, ring.newBarrier(), this);
+      processor.setExceptionHandler(this);
+      // skip the events published while there was no consumer
+      processor.getSequence().set(ring.getCursor());
+      ring.addGatingSequences(processor.getSequence());
+      executor = manager.newSingleThreadExecutor(this, threadName);
+      executor.execute(processor);
+    }
+    // only now, for the InOut events to be published from the cursor the consumer started at
+    ringBuffer.setConsuming(true);
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    RingBuffer<Slot> ring = ringBuffer.getRingBuffer();
+    ringBuffer.setConsuming(false);
+    if (workerPool != null) {
+      workerPool.drainAndHalt();
+      for (Sequence sequence : workerPool.getWorkerSequences()) {
+        ring.removeGatingSequence(sequence);
+      }
+      workerPool = null;
+    }
+    if (processor != null) {
+      // complete the events already published
+      while (processor.getSequence().get() < ring.getCursor() && processor.isRunning()) {
+        Thread.yield();
+      }
+      processor.halt();
+      ring.removeGatingSequence(processor.getSequence());
+      processor = null;
+    }
+    getEndpoint().getCamelContext().getExecutorServiceManager().shutdown(executor);
+    executor = null;
+    ringBuffer.unsubscribe(this);
+    super.doStop();
+  }
+
+  @Override
+  public void onEvent(Slot slot, long sequence, boolean endOfBatch) throws Exception {
+    onEvent(slot);
+  }
+
+  @Override
+  public void onEvent(Slot slot) throws Exception {
+    Object body = slot.body;
+    Map<String, Object> headers = slot.headers;
+    Exchange original = slot.exchange;
+    AsyncCallback callback = slot.callback;
+    slot.clear();
+    metrics.dispatched(1);
+    metrics.consumed(1);
+
+    long start = System.nanoTime();
+    Exchange exchange =
+        getEndpoint().createExchange(original != null ? ExchangePattern.InOut
+            : ExchangePattern.InOnly);
+    exchange.getIn().setBody(body);
+    if (headers != null) {
+      exchange.getIn().setHeaders(headers);
+    }
+    try {
+      getProcessor().process(exchange);
+    } catch (Exception e) {
+      exchange.setException(e);
+    }
+    metrics.processed(System.nanoTime() - start);
+
+    if (original != null) {
+      if (exchange.getException() != null) {
+        original.setException(exchange.getException());
+      } else {
+        Message result = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
+        original.getOut().copyFrom(result);
+      }
+      callback.done(false);
+    } else if (exchange.getException() != null) {
+      getExceptionHandler().handleException("Error processing ring buffer event", exchange,
+          exchange.getException());
+    }
+  }
+
+  @Override
+  public void handleEventException(Throwable ex, long sequence, Object event) {
+    LOG.error("Error processing event " + sequence + " of ring buffer " + ringBuffer.getName(), ex);
+  }
+
+  @Override
+  public void handleOnStartException(Throwable ex) {
+    LOG.error("Error starting the consumer of ring buffer " + ringBuffer.getName(), ex);
+  }
+
+  @Override
+  public void handleOnShutdownException(Throwable ex) {
+    LOG.error("Error stopping the consumer of ring buffer " + ringBuffer.getName(), ex);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.CamelExchangeException;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.impl.DefaultAsyncProducer;
+import org.apache.camel.spi.HeaderFilterStrategy;
+import org.apache.camel.util.ExchangeHelper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Publishes the exchanges straight into the {@link ReactorRingBuffer} of the endpoint. The body is
+ * passed by reference and the headers are copied, through the header filter strategy. InOnly
+ * exchanges are complete once published, InOut exchanges once processed by the consumer: they fail
+ * straight away when the ring has no consumer, rather than waiting for a reply that never comes.
+ *
+ * @author mmcalabro
+ */
+public class ReactorRingBufferProducer extends DefaultAsyncProducer {
+
+  private ReactorRingBuffer ringBuffer;
+  private ReactorMetrics metrics = ReactorMetrics.NONE;
+
+  public ReactorRingBufferProducer(ReactorEndpoint endpoint) {
+    super(endpoint);
+  }
+
+  @Override
+  public ReactorEndpoint getEndpoint() {
+    return (ReactorEndpoint) super.getEndpoint();
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    super.doStart();
+    ringBuffer = getEndpoint().getRingBuffer();
+    metrics = getEndpoint().getMetrics();
+  }
+
+  @Override
+  public boolean process(Exchange exchange, AsyncCallback callback) {
+    Message message = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
+    Map<String, Object> headers = null;
+    if (message.hasHeaders()) {
+      HeaderFilterStrategy filter = getEndpoint().getHeaderFilterStrategy();
+      headers = new HashMap<>(message.getHeaders().size());
+      for (Map.Entry<String, Object> entry : message.getHeaders().entrySet()) {
+        if (filter == null
+            || !filter.applyFilterToCamelHeaders(entry.getKey(), entry.getValue(), exchange)) {
+          headers.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    boolean inOut = ExchangeHelper.isOutCapable(exchange);
+    try {
+      if (!ringBuffer.publish(message.getBody(), headers, inOut ? exchange : null,
+          inOut ? callback : null)) {
+        throw new CamelExchangeException("No consumer available on ring buffer "
+            + ringBuffer.getName(), exchange);
+      }
+    } catch (Exception e) {
+      exchange.setException(e);
+      callback.done(true);
+      return true;
+    }
+    metrics.published(1);
+    if (inOut) {
+      return false;
+    }
+    callback.done(true);
+    return true;
+  }
+}
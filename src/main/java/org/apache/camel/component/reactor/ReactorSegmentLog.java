@@ -0,0 +1,300 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An append-only log of records in memory-mapped segment files of a fixed size, named
+ * {@code <name>-<number>.seg}, read back sequentially in the order they were appended.
+ * <p>
+ * Each record is its length, an {@code int} greater than zero, followed by its bytes; a length of
+ * {@code -1} marks the end of a segment whose remaining space was too small for the next record,
+ * and a length of {@code 0} the end of the records written so far. Reopening a log finds the end
+ * of its last segment and appends from there, while reading starts from its first segment.
+ * <p>
+ * A record is identified by its position, the number of its segment in the high 32 bits and its
+ * offset in the low 32 bits.
+ *
+ * @author mmcalabro
+ */
+public class ReactorSegmentLog implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorSegmentLog.class);
+
+  private static final int HEADER = 4;
+  private static final int END_OF_SEGMENT = -1;
+
+  private final File directory;
+  private final String name;
+  private final int segmentSize;
+  private final TreeMap<Integer, MappedByteBuffer> segments = new TreeMap<>();
+  private int writeSegment;
+  private int writeOffset;
+  private int readSegment;
+  private int readOffset;
+  private long readPosition = -1;
+  private boolean dirty;
+
+  public ReactorSegmentLog(File directory, String name, int segmentSize) throws IOException {
+    if (segmentSize <= HEADER * 2) {
+      throw new IllegalArgumentException("Segments of " + segmentSize + " bytes are too small");
+    }
+    this.directory = directory;
+    this.name = name;
+    this.segmentSize = segmentSize;
+    open();
+  }
+
+  public static long position(int segment, int offset) {
+    return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  public static int segmentOf(long position) {
+    return (int) (position >>> 32);
+  }
+
+  private void open() throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create the directory " + directory);
+    }
+    final String prefix = name + "-";
+    String[] files = directory.list(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String file) {
+        return file.startsWith(prefix) && file.endsWith(".seg");
+      }
+    });
+    for (String file : files) {
+      try {
+        int number = Integer.parseInt(file.substring(prefix.length(), file.length() - 4));
+        segments.put(number, map(number));
+      } catch (NumberFormatException e) {
+        LOG.debug("Ignoring file {} in {}", file, directory);
+      }
+    }
+    if (segments.isEmpty()) {
+      segments.put(0, map(0));
+    }
+    writeSegment = segments.lastKey();
+    writeOffset = findEnd(segments.get(writeSegment));
+    readSegment = segments.firstKey();
+    readOffset = 0;
+    LOG.debug("Opened log {} in {} with segments {} to {}", name, directory, readSegment,
+        writeSegment);
+  }
+
+  private MappedByteBuffer map(int number) throws IOException {
+    RandomAccessFile file = new RandomAccessFile(fileOf(number), "rw");
+    try {
+      if (file.length() < segmentSize) {
+        file.setLength(segmentSize);
+      }
+      // the mapping stays valid once the file is closed
+      return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    } finally {
+      file.close();
+    }
+  }
+
+  private File fileOf(int number) {
+    return new File(directory, name + "-" + number + ".seg");
+  }
+
+  private int findEnd(MappedByteBuffer segment) {
+    int offset = 0;
+    while (offset <= segmentSize - HEADER) {
+      int length = segment.getInt(offset);
+      if (length == END_OF_SEGMENT) {
+        return segmentSize;
+      }
+      if (length <= 0 || offset + HEADER + length > segmentSize) {
+        return offset;
+      }
+      offset += HEADER + length;
+    }
+    return offset;
+  }
+
+  /**
+   * Appends a record, rotating to a new segment when the current one is full.
+   *
+   * @return the position of the record
+   */
+  public synchronized long append(byte[] record) throws IOException {
+    int length = record.length;
+    if (length == 0 || length > segmentSize - HEADER) {
+      throw new IOException("Cannot append a record of " + length + " bytes to segments of "
+          + segmentSize + " bytes");
+    }
+    if (writeOffset + HEADER + length > segmentSize) {
+      rotate();
+    }
+    MappedByteBuffer segment = segments.get(writeSegment);
+    long position = position(writeSegment, writeOffset);
+    // the bytes first, the length last: a record is never seen half written
+    ByteBuffer bytes = segment.duplicate();
+    bytes.position(writeOffset + HEADER);
+    bytes.put(record);
+    segment.putInt(writeOffset, length);
+    writeOffset += HEADER + length;
+    dirty = true;
+    return position;
+  }
+
+  private void rotate() throws IOException {
+    MappedByteBuffer segment = segments.get(writeSegment);
+    if (writeOffset <= segmentSize - HEADER) {
+      segment.putInt(writeOffset, END_OF_SEGMENT);
+    }
+    if (dirty) {
+      segment.force();
+    }
+    writeSegment++;
+    writeOffset = 0;
+    segments.put(writeSegment, map(writeSegment));
+  }
+
+  /**
+   * @return the next record, {@code null} when all the records appended so far have been read
+   */
+  public synchronized byte[] read() {
+    for (;;) {
+      if (readSegment == writeSegment && readOffset >= writeOffset) {
+        return null;
+      }
+      MappedByteBuffer segment = segments.get(readSegment);
+      int length =
+          segment != null && readOffset <= segmentSize - HEADER ? segment.getInt(readOffset) : 0;
+      if (length <= 0) {
+        // end of a segment, or of a segment left incomplete by a crash
+        if (readSegment >= writeSegment) {
+          return null;
+        }
+        Integer next = segments.higherKey(readSegment);
+        readSegment = next != null ? next : writeSegment;
+        readOffset = 0;
+        continue;
+      }
+      byte[] record = new byte[length];
+      ByteBuffer bytes = segment.duplicate();
+      bytes.position(readOffset + HEADER);
+      bytes.get(record);
+      readPosition = position(readSegment, readOffset);
+      readOffset += HEADER + length;
+      return record;
+    }
+  }
+
+  /**
+   * @return the position of the last record read, {@code -1} when none was
+   */
+  public synchronized long getReadPosition() {
+    return readPosition;
+  }
+
+  /**
+   * @return whether all the records appended so far have been read
+   */
+  public synchronized boolean isRead() {
+    return readSegment == writeSegment && readOffset >= writeOffset;
+  }
+
+  /**
+   * Writes the records appended since the last call to the storage device.
+   */
+  public void force() {
+    MappedByteBuffer segment;
+    synchronized (this) {
+      if (!dirty) {
+        return;
+      }
+      segment = segments.get(writeSegment);
+      dirty = false;
+    }
+    // outside of the lock, not to hold appends back: those made meanwhile are forced next time
+    segment.force();
+  }
+
+  /**
+   * Deletes the segments before the given one, as well as the segments already read when
+   * {@code segment} is greater than the segment being read.
+   */
+  public synchronized void deleteBefore(int segment) {
+    int limit = Math.min(segment, writeSegment);
+    for (Map.Entry<Integer, MappedByteBuffer> entry : segments.headMap(limit).entrySet()) {
+      File file = fileOf(entry.getKey());
+      if (!file.delete()) {
+        LOG.warn("Cannot delete the segment {}", file);
+      }
+    }
+    segments.headMap(limit).clear();
+    if (readSegment < limit) {
+      readSegment = limit;
+      readOffset = 0;
+    }
+  }
+
+  /**
+   * @return the number of the segment being read
+   */
+  public synchronized int getReadSegment() {
+    return readSegment;
+  }
+
+  /**
+   * @return the number of the first segment not deleted
+   */
+  public synchronized int getFirstSegment() {
+    return segments.isEmpty() ? writeSegment : segments.firstKey();
+  }
+
+  /**
+   * @return the number of segment files
+   */
+  public synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  @Override
+  public synchronized void close() {
+    force();
+    segments.clear();
+  }
+
+  /**
+   * Closes the log and deletes its segments.
+   */
+  public synchronized void delete() {
+    for (Integer number : segments.keySet()) {
+      File file = fileOf(number);
+      if (!file.delete()) {
+        LOG.warn("Cannot delete the segment {}", file);
+      }
+    }
+    segments.clear();
+  }
+}
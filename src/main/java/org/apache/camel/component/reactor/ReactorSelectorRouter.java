@@ -0,0 +1,516 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Reactor;
+import reactor.event.Event;
+import reactor.event.registry.Registration;
+import reactor.event.selector.HeaderResolver;
+import reactor.event.selector.ObjectSelector;
+import reactor.event.selector.Selector;
+import reactor.event.selector.Selectors;
+import reactor.function.Consumer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Routes the events of a reactor to the consumers of {@link SelectorType#uri} and
+ * {@link SelectorType#regex} endpoints, in place of one Reactor selector per consumer. The
+ * selectors are compiled together: URI templates into a trie of path segments, regular
+ * expressions into one alternation that rules out the keys matching none of them. The URI
+ * templates the trie cannot match exactly as {@link Selectors#uri} does are matched by their
+ * Reactor selector instead. The consumers resolved for a key, with the headers resolved from it,
+ * are cached in a concurrent cache bounded to about {@code cacheSize} keys, evicting the least
+ * recently used keys beyond.
+ * <p>
+ * The router is registered once on the reactor, with a selector matching every {@link String}
+ * key, for the reactor registry never to cache a key as not routed. Adding or cancelling a route
+ * recompiles the selectors into a new table, with an empty cache, without unregistering the
+ * router: no event is missed while the routes change.
+ *
+ * @author mmcalabro
+ */
+public class ReactorSelectorRouter implements Consumer<Event<?>> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorSelectorRouter.class);
+
+  private final Reactor reactor;
+  private final int cacheSize;
+  private final List<Route> routes = new CopyOnWriteArrayList<>();
+  private volatile Table table;
+  private Registration<?> registration;
+  private boolean stopped;
+
+  public ReactorSelectorRouter(Reactor reactor, int cacheSize) {
+    this.reactor = reactor;
+    this.cacheSize = cacheSize;
+    this.table = new Table(Collections.<Route>emptyList(), cacheSize);
+  }
+
+  /**
+   * Routes the keys matching the given URI template or regular expression to the consumer.
+   *
+   * @return the registration of the route, to cancel it
+   */
+  public Registration<Consumer<Event<?>>> on(SelectorType type, String selector,
+      Consumer<Event<?>> consumer) {
+    if (type != SelectorType.uri && type != SelectorType.regex) {
+      throw new IllegalArgumentException("Only uri and regex selectors can be routed: " + type);
+    }
+    Route route = new Route(this, type, selector, consumer);
+    routes.add(route);
+    refresh();
+    return route;
+  }
+
+  /**
+   * @return whether any route matches the key
+   */
+  public boolean matches(Object key) {
+    return table.resolve(key).length > 0;
+  }
+
+  /**
+   * Unregisters the router from the reactor.
+   */
+  public synchronized void stop() {
+    stopped = true;
+    if (registration != null) {
+      registration.cancel();
+      registration = null;
+    }
+  }
+
+  @Override
+  public void accept(Event<?> event) {
+    for (Match match : table.resolve(event.getKey())) {
+      Route route = match.route;
+      if (route.cancelled || route.paused) {
+        continue;
+      }
+      for (Map.Entry<String, Object> header : match.headers.entrySet()) {
+        event.getHeaders().set(header.getKey(), header.getValue());
+      }
+      if (route.cancelAfterUse) {
+        route.cancel();
+      }
+      route.consumer.accept(event);
+    }
+  }
+
+  private void remove(Route route) {
+    if (routes.remove(route)) {
+      refresh();
+    }
+  }
+
+  private synchronized void refresh() {
+    table = new Table(new ArrayList<>(routes), cacheSize);
+    if (registration == null && !stopped && !routes.isEmpty()) {
+      registration = reactor.on(new RouterSelector(this), this);
+    }
+    LOG.debug("Routing {} selectors", routes.size());
+  }
+
+  /**
+   * The selector of the router on the reactor, matching every {@link String} key: the keys of the
+   * routes are only resolved by the router, whose routes change without the reactor registry
+   * knowing.
+   */
+  private static final class RouterSelector extends ObjectSelector<ReactorSelectorRouter> {
+
+    private RouterSelector(ReactorSelectorRouter router) {
+      super(router);
+    }
+
+    @Override
+    public boolean matches(Object key) {
+      return key instanceof String;
+    }
+  }
+
+  /**
+   * The compiled selectors of the routes at a point in time, with the cache of their resolutions.
+   */
+  private static final class Table {
+
+    private static final Match[] NONE = new Match[0];
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\[1-9]");
+
+    private final PathTrie templates = new PathTrie();
+    private final List<Route> fallback = new ArrayList<>();
+    private final List<Route> regexes = new ArrayList<>();
+    private final Pattern prefilter;
+    private final ConcurrentMap<String, Cached> cache = new ConcurrentHashMap<>();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int cacheSize;
+
+    private Table(List<Route> routes, int cacheSize) {
+      StringBuilder alternation = new StringBuilder();
+      for (Route route : routes) {
+        if (route.type == SelectorType.regex) {
+          regexes.add(route);
+          alternation.append(alternation.length() > 0 ? "|" : "").append("(?:")
+              .append(route.selector).append(')');
+        } else if (!templates.add(route)) {
+          fallback.add(route);
+        }
+      }
+      prefilter = compile(alternation);
+      this.cacheSize = cacheSize;
+    }
+
+    private static Pattern compile(StringBuilder alternation) {
+      // group numbers shift in the alternation: no prefilter for back references
+      if (alternation.length() == 0 || BACK_REFERENCE.matcher(alternation).find()) {
+        return null;
+      }
+      try {
+        return Pattern.compile(alternation.toString());
+      } catch (PatternSyntaxException e) {
+        return null;
+      }
+    }
+
+    private Match[] resolve(Object key) {
+      if (!(key instanceof String)) {
+        return NONE;
+      }
+      String path = (String) key;
+      Cached cached = cache.get(path);
+      if (cached == null) {
+        cached = new Cached(match(path), misses.incrementAndGet());
+        if (cache.size() >= cacheSize) {
+          evict();
+        }
+        cache.put(path, cached);
+      } else {
+        cached.touch(misses.get());
+      }
+      return cached.matches;
+    }
+
+    /**
+     * Drops the least recently used quarter of the keys, or a few more with the same recency: an
+     * approximate LRU, whose recency is counted in misses not to order the keys on every hit. The
+     * threads missing while another one evicts do not wait for it.
+     */
+    private void evict() {
+      if (!evicting.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        long[] used = new long[cache.size()];
+        int size = 0;
+        for (Cached cached : cache.values()) {
+          if (size == used.length) {
+            break;
+          }
+          used[size++] = cached.used;
+        }
+        if (size == 0) {
+          return;
+        }
+        Arrays.sort(used, 0, size);
+        long threshold = used[Math.max(0, size / 4 - 1)];
+        for (Iterator<Cached> i = cache.values().iterator(); i.hasNext();) {
+          if (i.next().used <= threshold) {
+            i.remove();
+          }
+        }
+      } finally {
+        evicting.set(false);
+      }
+    }
+
+    private Match[] match(String path) {
+      List<Match> matches = new ArrayList<>();
+      templates.match(path, matches);
+      for (Route route : fallback) {
+        if (route.getSelector().matches(path)) {
+          matches.add(new Match(route, resolveHeaders(route.getSelector(), path)));
+        }
+      }
+      if (!regexes.isEmpty() && (prefilter == null || prefilter.matcher(path).matches())) {
+        for (Route route : regexes) {
+          Matcher matcher = route.pattern.matcher(path);
+          if (matcher.matches()) {
+            Map<String, Object> headers = new HashMap<>();
+            for (int i = 1; i <= matcher.groupCount(); i++) {
+              headers.put("group" + i, matcher.group(i));
+            }
+            matches.add(new Match(route, headers));
+          }
+        }
+      }
+      return matches.isEmpty() ? NONE : matches.toArray(new Match[matches.size()]);
+    }
+
+    private static Map<String, Object> resolveHeaders(Selector selector, String path) {
+      HeaderResolver resolver = selector.getHeaderResolver();
+      Map<String, Object> headers = resolver != null ? resolver.resolve(path) : null;
+      return headers != null ? headers : Collections.<String, Object>emptyMap();
+    }
+  }
+
+  /**
+   * A trie of the segments of URI templates, matching the keys as {@link Selectors#uri} does:
+   * {@code {variable}} segments match any segment without a dot, even empty, and a trailing
+   * {@code **} any path after its slash, even empty. Templates not starting with a slash, or with
+   * any other wildcard or regular expression character, are left to their Reactor selector.
+   */
+  private static final class PathTrie {
+
+    private static final Pattern REGEX = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
+    private final Node root = new Node();
+
+    /**
+     * @return whether the template could be compiled into the trie
+     */
+    private boolean add(Route route) {
+      if (!route.selector.startsWith("/")) {
+        return false;
+      }
+      String[] segments = route.selector.split("/", -1);
+      List<String> variables = new ArrayList<>();
+      Node node = root;
+      for (int i = 0; i < segments.length; i++) {
+        String segment = segments[i];
+        if ("**".equals(segment)) {
+          if (i != segments.length - 1) {
+            return false;
+          }
+          node.tails.add(new Template(route, variables));
+          return true;
+        } else if (segment.length() > 2 && segment.charAt(0) == '{'
+            && segment.indexOf('}') == segment.length() - 1 && segment.indexOf('{', 1) < 0) {
+          variables.add(segment.substring(1, segment.length() - 1));
+          node = node.variable();
+        } else if (REGEX.matcher(segment).find()) {
+          return false;
+        } else {
+          node = node.literal(segment);
+        }
+      }
+      node.templates.add(new Template(route, variables));
+      return true;
+    }
+
+    private void match(String path, List<Match> matches) {
+      match(root, path.split("/", -1), 0, new ArrayList<String>(), matches);
+    }
+
+    private void match(Node node, String[] segments, int index, List<String> values,
+        List<Match> matches) {
+      if (index == segments.length) {
+        for (Template template : node.templates) {
+          matches.add(template.match(values));
+        }
+        return;
+      }
+      // the slash before the tail is matched, whatever follows
+      for (Template template : node.tails) {
+        matches.add(template.match(values));
+      }
+      Node literal = node.literals.get(segments[index]);
+      if (literal != null) {
+        match(literal, segments, index + 1, values, matches);
+      }
+      if (node.variable != null && segments[index].indexOf('.') < 0) {
+        values.add(segments[index]);
+        match(node.variable, segments, index + 1, values, matches);
+        values.remove(values.size() - 1);
+      }
+    }
+  }
+
+  private static final class Node {
+
+    private final Map<String, Node> literals = new HashMap<>();
+    private final List<Template> templates = new ArrayList<>(1);
+    private final List<Template> tails = new ArrayList<>(1);
+    private Node variable;
+
+    private Node literal(String segment) {
+      Node node = literals.get(segment);
+      if (node == null) {
+        node = new Node();
+        literals.put(segment, node);
+      }
+      return node;
+    }
+
+    private Node variable() {
+      if (variable == null) {
+        variable = new Node();
+      }
+      return variable;
+    }
+  }
+
+  /**
+   * A URI template of the trie with the names of its variables, in order.
+   */
+  private static final class Template {
+
+    private final Route route;
+    private final String[] names;
+
+    private Template(Route route, List<String> variables) {
+      this.route = route;
+      this.names = variables.toArray(new String[variables.size()]);
+    }
+
+    private Match match(List<String> values) {
+      if (names.length == 0) {
+        return new Match(route, Collections.<String, Object>emptyMap());
+      }
+      Map<String, Object> headers = new HashMap<>();
+      for (int i = 0; i < names.length; i++) {
+        headers.put(names[i], values.get(i));
+      }
+      return new Match(route, headers);
+    }
+  }
+
+  /**
+   * The routes matching a key in the cache, and the number of misses when last used.
+   */
+  private static final class Cached {
+
+    private final Match[] matches;
+    private volatile long used;
+
+    private Cached(Match[] matches, long used) {
+      this.matches = matches;
+      this.used = used;
+    }
+
+    private void touch(long now) {
+      if (used != now) {
+        used = now;
+      }
+    }
+  }
+
+  private static final class Match {
+
+    private final Route route;
+    private final Map<String, Object> headers;
+
+    private Match(Route route, Map<String, Object> headers) {
+      this.route = route;
+      this.headers = headers;
+    }
+  }
+
+  /**
+   * A consumer routed by its selector, and its registration.
+   */
+  private static final class Route implements Registration<Consumer<Event<?>>> {
+
+    private final ReactorSelectorRouter router;
+    private final SelectorType type;
+    private final String selector;
+    private final Consumer<Event<?>> consumer;
+    private final Pattern pattern;
+    private Selector reactorSelector;
+    private volatile boolean cancelAfterUse;
+    private volatile boolean cancelled;
+    private volatile boolean paused;
+
+    private Route(ReactorSelectorRouter router, SelectorType type, String selector,
+        Consumer<Event<?>> consumer) {
+      this.router = router;
+      this.type = type;
+      this.selector = selector;
+      this.consumer = consumer;
+      this.pattern = type == SelectorType.regex ? Pattern.compile(selector) : null;
+    }
+
+    @Override
+    public synchronized Selector getSelector() {
+      if (reactorSelector == null) {
+        reactorSelector =
+            type == SelectorType.regex ? Selectors.regex(selector) : Selectors.uri(selector);
+      }
+      return reactorSelector;
+    }
+
+    @Override
+    public Consumer<Event<?>> getObject() {
+      return consumer;
+    }
+
+    @Override
+    public Registration<Consumer<Event<?>>> cancelAfterUse() {
+      cancelAfterUse = true;
+      return this;
+    }
+
+    @Override
+    public boolean isCancelAfterUse() {
+      return cancelAfterUse;
+    }
+
+    @Override
+    public Registration<Consumer<Event<?>>> cancel() {
+      if (!cancelled) {
+        cancelled = true;
+        router.remove(this);
+      }
+      return this;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public Registration<Consumer<Event<?>>> pause() {
+      paused = true;
+      return this;
+    }
+
+    @Override
+    public boolean isPaused() {
+      return paused;
+    }
+
+    @Override
+    public Registration<Consumer<Event<?>>> resume() {
+      paused = false;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import reactor.event.Event;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A first in, first out queue of events spilled to a {@link ReactorSegmentLog}, whose segments are
+ * deleted as soon as their events are read back. A spool only lives as long as its endpoint: the
+ * segments of its name are deleted when it is opened and closed, so no two spools in use may share
+ * a directory and a name.
+ *
+ * @author mmcalabro
+ */
+public class ReactorSpool {
+
+  private final ReactorSegmentLog log;
+  private final ReactorEventSerializer serializer;
+  private final AtomicLong size = new AtomicLong();
+
+  public ReactorSpool(File directory, String name, int segmentSize,
+      ReactorEventSerializer serializer) throws IOException {
+    // left over by a previous run, their events are not replayed
+    new ReactorSegmentLog(directory, name, segmentSize).delete();
+    this.log = new ReactorSegmentLog(directory, name, segmentSize);
+    this.serializer = serializer;
+  }
+
+  public void offer(Event<?> event) throws IOException {
+    log.append(serializer.serialize(event));
+    size.incrementAndGet();
+  }
+
+  /**
+   * @return the oldest event spooled, {@code null} when none is
+   */
+  public Event<?> poll() throws IOException {
+    byte[] record;
+    synchronized (log) {
+      record = log.read();
+      if (record == null) {
+        return null;
+      }
+      size.decrementAndGet();
+      // the segments before the one being read are done with
+      log.deleteBefore(log.getReadSegment());
+    }
+    return serializer.deserialize(record);
+  }
+
+  public boolean isEmpty() {
+    return size.get() == 0;
+  }
+
+  public long size() {
+    return size.get();
+  }
+
+  public void close() {
+    log.delete();
+  }
+}
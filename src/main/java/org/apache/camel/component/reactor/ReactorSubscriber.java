@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.event.Event;
+import reactor.function.Consumer;
+
+/**
+ * A Reactive Streams {@link Subscriber} publishing the items it receives to the selector of an
+ * endpoint, as the data of the event when not an {@link Event} already. Demand follows the
+ * dispatcher: {@code prefetch} items are requested up front and more are only requested once
+ * previous events are delivered, so at most {@code prefetch} events are ever in flight.
+ * <p>
+ * A subscriber can only be subscribed once.
+ *
+ * @author mmcalabro
+ */
+public class ReactorSubscriber implements Subscriber<Object> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactorSubscriber.class);
+
+  private final ReactorEndpoint endpoint;
+  private final ReactorMetrics metrics;
+  private final int prefetch;
+  private final int limit;
+  private final Consumer<Event<?>> dispatched = new Consumer<Event<?>>() {
+    @Override
+    public void accept(Event<?> event) {
+      metrics.dispatched(1);
+      replenish();
+    }
+  };
+  private Subscription subscription;
+  private int delivered;
+  private volatile boolean done;
+
+  public ReactorSubscriber(ReactorEndpoint endpoint) {
+    this.endpoint = endpoint;
+    this.metrics = endpoint.getMetrics();
+    this.prefetch = Math.max(1, endpoint.getConfiguration().getPrefetch());
+    // request in batches rather than one item at a time
+    this.limit = Math.max(1, prefetch / 2);
+  }
+
+  @Override
+  public void onSubscribe(Subscription subscription) {
+    if (subscription == null) {
+      throw new NullPointerException("Subscription must not be null");
+    }
+    synchronized (this) {
+      if (this.subscription != null || done) {
+        subscription.cancel();
+        return;
+      }
+      this.subscription = subscription;
+    }
+    subscription.request(prefetch);
+  }
+
+  @Override
+  public void onNext(Object item) {
+    if (item == null) {
+      throw new NullPointerException("Item must not be null");
+    }
+    Event<?> event = item instanceof Event ? (Event<?>) item : Event.wrap(item);
+    Object key = endpoint.getSelectorObject();
+    try {
+      metrics.published(1);
+      endpoint.getReactor().<Event<?>>notify(key, event, dispatched);
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to send to: " + key + " the event: " + event + ", cancelling", e);
+      cancel();
+    }
+  }
+
+  @Override
+  public void onError(Throwable error) {
+    done = true;
+    LOG.warn("Publisher to " + endpoint.getEndpointUri() + " failed", error);
+  }
+
+  @Override
+  public void onComplete() {
+    done = true;
+    LOG.debug("Publisher to {} completed", endpoint.getEndpointUri());
+  }
+
+  /**
+   * Cancels the subscription, no more items are requested.
+   */
+  public synchronized void cancel() {
+    done = true;
+    if (subscription != null) {
+      subscription.cancel();
+    }
+  }
+
+  /**
+   * @return whether the publisher has completed or failed, or the subscription is cancelled
+   */
+  public boolean isDone() {
+    return done;
+  }
+
+  private synchronized void replenish() {
+    if (done || ++delivered < limit) {
+      return;
+    }
+    int n = delivered;
+    delivered = 0;
+    subscription.request(n);
+  }
+}
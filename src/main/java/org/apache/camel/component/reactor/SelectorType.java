@@ -18,5 +18,5 @@ package org.apache.camel.component.reactor;
  * @author mmcalabro
  */
 public enum SelectorType {
-  type, uri, object, regex, set, predicate
+  type, uri, object, regex, set, predicate, ringbuffer
 }
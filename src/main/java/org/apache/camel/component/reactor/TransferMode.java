@@ -0,0 +1,29 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+/**
+ * How the exchange is carried by the event when {@code transferExchange} is enabled.
+ * <ul>
+ * <li>{@code serialized}: a {@link org.apache.camel.impl.DefaultExchangeHolder}, with the
+ * serializable body, headers and properties only</li>
+ * <li>{@code snapshot}: a {@link ReactorExchangeSnapshot}, an immutable shallow copy sharing the
+ * body, header and property values with the exchange, as the reactor is in the same JVM</li>
+ * </ul>
+ *
+ * @author mmcalabro
+ */
+public enum TransferMode {
+  serialized, snapshot
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.camel.component.reactor;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+
+/**
+ * How the consumers of a ring buffer wait for events, from the most CPU friendly to the lowest
+ * latency.
+ *
+ * @author mmcalabro
+ */
+public enum WaitStrategyType {
+  blocking, sleeping, yielding, busySpin;
+
+  public WaitStrategy create() {
+    switch (this) {
+      case sleeping:
+        return new SleepingWaitStrategy();
+      case yielding:
+        return new YieldingWaitStrategy();
+      case busySpin:
+        return new BusySpinWaitStrategy();
+      default:
+        return new BlockingWaitStrategy();
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorAsyncConsumerTest extends ReactorBaseTestSupport {
+
+  private static final int MAX_WAIT = 10;
+  private static final long SLOW = 500;
+
+  protected String slow = "reactor:uri:/async/slow?dispatcher=sync&synchronous=false";
+  protected String echo = "reactor:uri:/async/echo?dispatcher=sync&synchronous=false";
+  protected String bounded =
+      "reactor:uri:/async/bounded?dispatcher=sync&synchronous=false&maxInFlight=2";
+  protected String concurrent =
+      "reactor:uri:/async/concurrent?dispatcher=sync&concurrentConsumers=2&maxInFlight=2";
+  protected String delayed = "reactor:uri:/async/delayed?dispatcher=threadPool&synchronous=false";
+  protected String delayedRequest =
+      "reactor:uri:/async/delayed?dispatcher=threadPool&requestTimeout=5000";
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(slow).delay(SLOW).to("mock:slow");
+        from(echo).transform(simple("echo ${body} from ${threadName}"));
+        from(delayed).delay(100).asyncDelayed().transform(body().prepend("delayed "));
+        Processor held = new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            release.await(MAX_WAIT, TimeUnit.SECONDS);
+          }
+        };
+        from(bounded).process(held).to("mock:bounded");
+        from(concurrent).process(held).to("mock:concurrent");
+      }
+    };
+  }
+
+  @Test
+  public void testSlowRouteDoesNotHoldTheDispatcher() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:slow");
+    mock.expectedMessageCount(5);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 5; i++) {
+      template.sendBody(slow, i);
+    }
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    // inline, the dispatcher would have taken 5 times as long
+    assertTrue("Dispatching took " + elapsed + " ms", elapsed < SLOW);
+
+    assertMockEndpointsSatisfied(MAX_WAIT, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testReplySentOnCompletion() throws Exception {
+    String reply = template.requestBody(echo, "hello", String.class);
+    assertTrue(reply, reply.startsWith("echo hello from "));
+    assertFalse(reply, reply.endsWith(Thread.currentThread().getName()));
+  }
+
+  @Test
+  public void testReplySentFromThreadStartedByTheDispatcher() throws Exception {
+    // the threads of the consumer and of the delayer are all started from the dispatcher thread
+    for (int i = 0; i < 3; i++) {
+      assertEquals("delayed " + i, template.requestBody(delayedRequest, String.valueOf(i),
+          String.class));
+    }
+  }
+
+  @Test
+  public void testMaxInFlightHoldsTheDispatcherBack() throws Exception {
+    assertDispatcherHeldBack(bounded, "mock:bounded");
+  }
+
+  @Test
+  public void testMaxInFlightBoundsConcurrentConsumers() throws Exception {
+    assertDispatcherHeldBack(concurrent, "mock:concurrent");
+  }
+
+  private void assertDispatcherHeldBack(final String uri, String mockUri) throws Exception {
+    MockEndpoint mock = getMockEndpoint(mockUri);
+    mock.expectedMessageCount(3);
+
+    template.sendBody(uri, 1);
+    template.sendBody(uri, 2);
+    final CountDownLatch sent = new CountDownLatch(1);
+    Thread third = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        template.sendBody(uri, 3);
+        sent.countDown();
+      }
+    });
+    third.start();
+    assertFalse(sent.await(SLOW, TimeUnit.MILLISECONDS));
+
+    release.countDown();
+    assertTrue(sent.await(MAX_WAIT, TimeUnit.SECONDS));
+    assertMockEndpointsSatisfied(MAX_WAIT, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorBatchConsumerTest extends ReactorBaseTestSupport {
+
+  protected String input = "reactor:uri:/telemetry/cpu?dispatcher=sync";
+  protected String batch =
+      "reactor:uri:/telemetry/{metric}?dispatcher=sync&batchSize=3&batchTimeout=2000";
+  protected String batchProducer = "reactor:uri:/split/item?dispatcher=sync&producerBatchSize=3";
+  protected String slowBatchProducer =
+      "reactor:uri:/split/item?dispatcher=sync&producerBatchSize=3&producerBatchTimeout=5000";
+  protected String itemConsumer = "reactor:uri:/split/{name}?dispatcher=sync";
+  protected String kindConsumer = "reactor:uri:/split/{kind}?dispatcher=sync";
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(batch).routeId("batch").to("mock:batch");
+        from(itemConsumer).to("mock:item");
+        from(kindConsumer).to("mock:kind");
+      }
+    };
+  }
+
+  @Test
+  public void testBatchBySizeThenByTimeout() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:batch");
+    mock.expectedMessageCount(2);
+    mock.message(0).body().isEqualTo(Arrays.asList(1, 2, 3));
+    mock.message(1).body().isEqualTo(Arrays.asList(4, 5));
+    mock.message(0).header(ReactorConstants.BATCH_SIZE).isEqualTo(3);
+    mock.message(1).header(ReactorConstants.BATCH_SIZE).isEqualTo(2);
+
+    for (int i = 1; i <= 5; i++) {
+      template.sendBody(input, i);
+    }
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testPendingBatchDeliveredOnStop() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:batch");
+    mock.expectedMessageCount(1);
+    mock.message(0).body().isEqualTo(Arrays.asList(1));
+
+    template.sendBody(input, 1);
+    context().stopRoute("batch");
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testProducerBatchIsDeliveredEventByEvent() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:item");
+    mock.expectedBodiesReceivedInAnyOrder(1, 2, 3, 4);
+    mock.allMessages().header("name").isEqualTo("item");
+    mock.allMessages().header("kind").isNull();
+    MockEndpoint kind = getMockEndpoint("mock:kind");
+    kind.expectedBodiesReceivedInAnyOrder(1, 2, 3, 4);
+    kind.allMessages().header("kind").isEqualTo("item");
+
+    // sent concurrently, each exchange completing once its event is accepted in the batch
+    List<Future<Object>> sent = new ArrayList<>();
+    for (int i = 1; i <= 4; i++) {
+      sent.add(template.asyncSendBody(batchProducer, i));
+    }
+    for (Future<Object> future : sent) {
+      future.get(5, TimeUnit.SECONDS);
+    }
+    // the last event waits for the batch timeout
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testSequentialSenderNotHeldByProducerBatch() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:item");
+    mock.expectedBodiesReceived(1, 2, 3, 4);
+
+    long start = System.currentTimeMillis();
+    for (int i = 1; i <= 4; i++) {
+      template.sendBody(slowBatchProducer, i);
+    }
+    // each send returns on enqueue, not once its batch is published
+    assertTrue(System.currentTimeMillis() - start < 2000);
+    assertMockEndpointsSatisfied();
+  }
+}
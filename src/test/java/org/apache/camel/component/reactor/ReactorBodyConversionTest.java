@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import reactor.event.Event;
+import reactor.io.Buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorBodyConversionTest extends ReactorBaseTestSupport {
+
+  private ReactorMessage createMessage(Object data) {
+    Exchange exchange = new DefaultExchange(context());
+    ReactorMessage message = new ReactorMessage(Event.wrap(data), new ReactorBinding());
+    exchange.setIn(message);
+    return message;
+  }
+
+  @Test
+  public void testConversionsOfImmutableBodiesAreCachedByType() throws Exception {
+    ReactorMessage message = createMessage("42");
+
+    Long first = message.getBody(Long.class);
+    assertEquals(Long.valueOf(42), first);
+    assertSame(first, message.getBody(Long.class));
+
+    message.setBody("43");
+    assertEquals(Long.valueOf(43), message.getBody(Long.class));
+  }
+
+  @Test
+  public void testConversionsOfMutableBodiesAreNotCached() throws Exception {
+    StringBuilder body = new StringBuilder("hello");
+    ReactorMessage message = createMessage(body);
+
+    assertEquals("hello", message.getBody(String.class));
+    body.append(" world");
+    assertEquals("hello world", message.getBody(String.class));
+  }
+
+  @Test
+  public void testByteArraysAreNeverShared() throws Exception {
+    ReactorMessage message = createMessage(ByteBuffer.wrap("hello".getBytes("UTF-8")));
+
+    byte[] first = message.getBody(byte[].class);
+    assertNotSame(message.getBody(ByteBuffer.class).array(), first);
+    assertNotSame(first, message.getBody(byte[].class));
+    first[0] = 'j';
+    assertEquals("hello", message.getBody(String.class));
+  }
+
+  @Test
+  public void testStreamsAreNeverShared() throws Exception {
+    ReactorMessage message = createMessage("hello");
+
+    InputStream first = message.getBody(InputStream.class);
+    InputStream second = message.getBody(InputStream.class);
+    assertNotSame(first, second);
+    assertEquals("hello", context().getTypeConverter().convertTo(String.class, first));
+    assertEquals("hello", context().getTypeConverter().convertTo(String.class, second));
+  }
+
+  @Test
+  public void testBufferConvertedWithoutCopy() throws Exception {
+    Buffer buffer = Buffer.wrap("hello");
+    ReactorMessage message = createMessage(buffer);
+
+    ByteBuffer bytes = message.getBody(ByteBuffer.class);
+    assertSame(buffer.byteBuffer().array(), bytes.array());
+    assertEquals("hello", message.getBody(String.class));
+    // the position of the buffer is left untouched
+    assertEquals(5, buffer.byteBuffer().remaining());
+  }
+
+  @Test
+  public void testFallsBackToTypeConverters() throws Exception {
+    ReactorMessage message = createMessage("42");
+    assertEquals(Integer.valueOf(42), message.getBody(Integer.class));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorBufferTest extends ReactorBaseTestSupport {
+
+  protected String binary = "reactor:uri:/binary/in?dispatcher=sync";
+  protected String shared = "reactor:uri:/shared/buffer?dispatcher=sync&synchronous=false";
+  protected String sharedTemplate = "reactor:uri:/shared/{name}?dispatcher=sync";
+
+  private volatile Object received;
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(binary).process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            received = exchange.getIn().getBody();
+          }
+        });
+        from(sharedTemplate).to("mock:first");
+        from(shared).delay(500).asyncDelayed().to("mock:second");
+      }
+    };
+  }
+
+  @Test
+  public void testConvertersWrapBuffers() throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+    buffer.put("hello".getBytes(StandardCharsets.UTF_8)).flip();
+
+    InputStream in = context().getTypeConverter().convertTo(InputStream.class, buffer);
+    assertIsInstanceOf(ReactorByteBufferInputStream.class, in);
+    assertEquals(5, in.available());
+    assertEquals("hello", context().getTypeConverter().convertTo(String.class, in));
+    assertEquals(5, buffer.remaining());
+
+    ReadableByteChannel channel = context().getTypeConverter().convertTo(
+        ReadableByteChannel.class, ByteBuffer.wrap("bye".getBytes(StandardCharsets.UTF_8)));
+    assertIsInstanceOf(ReactorByteBufferChannel.class, channel);
+    ByteBuffer dst = ByteBuffer.allocate(2);
+    assertEquals(2, channel.read(dst));
+    dst.clear();
+    assertEquals(1, channel.read(dst));
+    assertEquals(-1, channel.read(dst));
+  }
+
+  @Test
+  public void testPooledBufferPassesThroughAndIsReleased() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(binary, ReactorEndpoint.class);
+    ReactorBufferPool pool = endpoint.getBufferPool();
+    ByteBuffer buffer = pool.acquire(5000);
+    assertTrue(buffer.isDirect());
+    assertEquals(8192, buffer.capacity());
+    buffer.put(new byte[100]).flip();
+
+    template.sendBody("reactor:uri:/binary/in?dispatcher=sync&releaseBuffers=true", buffer);
+
+    assertSame(buffer, received);
+    assertEquals(8192, pool.getPooledBytes());
+    assertSame(buffer, pool.acquire(8000));
+    assertEquals(1, pool.getAllocatedCount());
+  }
+
+  @Test
+  public void testBufferReleasedOnceAllConsumersComplete() throws Exception {
+    ReactorBufferPool pool = context().getEndpoint(shared, ReactorEndpoint.class).getBufferPool();
+    ByteBuffer buffer = pool.acquire(100);
+    buffer.put(new byte[100]).flip();
+    MockEndpoint first = getMockEndpoint("mock:first");
+    first.expectedMessageCount(1);
+    MockEndpoint second = getMockEndpoint("mock:second");
+    second.expectedMessageCount(1);
+
+    template.sendBody(shared, buffer);
+    // the sender is done with it, the second consumer is not
+    pool.release(buffer);
+
+    first.assertIsSatisfied();
+    assertEquals(0, pool.getPooledBytes());
+    assertEquals(1, pool.getLeasedCount());
+    second.assertIsSatisfied();
+    long deadline = System.currentTimeMillis() + 5000;
+    while (pool.getPooledBytes() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(4096, pool.getPooledBytes());
+    assertEquals(0, pool.getLeasedCount());
+
+    // released twice, or not handed out by the pool
+    pool.release(buffer);
+    pool.release(ByteBuffer.allocateDirect(4096));
+    assertEquals(4096, pool.getPooledBytes());
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.JndiRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorCompiledHeaderFilterStrategyTest extends ReactorBaseTestSupport {
+
+  protected String filtered =
+      "reactor:uri:/filter/compiled?dispatcher=sync&headerFilterStrategy=#compiledFilter";
+
+  private final ReactorCompiledHeaderFilterStrategy strategy =
+      new ReactorCompiledHeaderFilterStrategy();
+
+  @Override
+  protected JndiRegistry createRegistry() throws Exception {
+    JndiRegistry registry = super.createRegistry();
+    registry.bind("compiledFilter", strategy);
+    return registry;
+  }
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(filtered).to("mock:filtered");
+      }
+    };
+  }
+
+  @Test
+  public void testDefaultRules() throws Exception {
+    assertTrue(strategy.applyFilterToCamelHeaders("CamelFileName", "a", null));
+    assertTrue(strategy.applyFilterToCamelHeaders("camelfilename", "a", null));
+    assertTrue(strategy.applyFilterToCamelHeaders("JMSCorrelationID", "a", null));
+    assertTrue(strategy.applyFilterToCamelHeaders("org.apache.camel.foo", "a", null));
+    assertTrue(strategy.applyFilterToCamelHeaders(ReactorConstants.KEY, "a", null));
+    assertTrue(strategy.applyFilterToCamelHeaders(null, "a", null));
+    assertFalse(strategy.applyFilterToCamelHeaders("Cam", "a", null));
+    assertFalse(strategy.applyFilterToCamelHeaders("foo", "a", null));
+    assertFalse(strategy.applyFilterToCamelHeaders(ReactorConstants.REPLY_TO, "a", null));
+    assertFalse(strategy.applyFilterToExternalHeaders("CamelFileName", "a", null));
+  }
+
+  @Test
+  public void testSameComponentHeadersAsDefaultStrategy() throws Exception {
+    ReactorHeaderFilterStrategy regex = new ReactorHeaderFilterStrategy();
+    for (String name : ReactorHeaderFilterStrategy.OUT_FILTER) {
+      assertTrue(name, regex.applyFilterToCamelHeaders(name, "a", null));
+      assertTrue(name, strategy.applyFilterToCamelHeaders(name, "a", null));
+    }
+    assertTrue(strategy.applyFilterToCamelHeaders(ReactorConstants.JOURNAL_POSITION, 1L, null));
+  }
+
+  @Test
+  public void testCustomRulesWithBoundedCache() throws Exception {
+    ReactorCompiledHeaderFilterStrategy custom = new ReactorCompiledHeaderFilterStrategy();
+    custom.setCaseInsensitive(false);
+    custom.setCacheSize(2);
+    custom.setOutFilter(Arrays.asList("secret"));
+    custom.setOutPrefixes(Arrays.asList("x-", "x-internal-"));
+    for (int i = 0; i < 10; i++) {
+      assertTrue(custom.applyFilterToCamelHeaders("x-" + i, "a", null));
+      assertFalse(custom.applyFilterToCamelHeaders("X-" + i, "a", null));
+    }
+    assertTrue(custom.applyFilterToCamelHeaders("secret", "a", null));
+    assertFalse(custom.applyFilterToCamelHeaders("Secret", "a", null));
+  }
+
+  @Test
+  public void testStrategyResolvedByEndpoint() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(filtered, ReactorEndpoint.class);
+    assertSame(strategy, endpoint.getHeaderFilterStrategy());
+
+    MockEndpoint mock = getMockEndpoint("mock:filtered");
+    mock.expectedHeaderReceived("foo", "bar");
+    mock.message(0).header("CamelSecret").isNull();
+
+    template.send(endpoint, new Processor() {
+      @Override
+      public void process(Exchange exchange) throws Exception {
+        exchange.getIn().setBody("hello");
+        exchange.getIn().setHeader("foo", "bar");
+        exchange.getIn().setHeader("CamelSecret", "s3cr3t");
+      }
+    });
+
+    assertMockEndpointsSatisfied();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorConcurrentConsumersTest extends ReactorBaseTestSupport {
+
+  private static final int MAX_WAIT = 10;
+
+  protected String parallel = "reactor:uri:/workers/parallel?dispatcher=sync&concurrentConsumers=2";
+  protected String ordered =
+      "reactor:uri:/workers/ordered?dispatcher=sync&concurrentConsumers=4&orderingKey=group";
+  protected String backlogged = "reactor:uri:/workers/backlogged?dispatcher=ringBuffer"
+      + "&concurrentConsumers=2&orderingKey=group";
+  protected String asyncOrdered = "reactor:uri:/workers/async?dispatcher=sync"
+      + "&concurrentConsumers=2&orderingKey=group&synchronous=false";
+
+  private final CountDownLatch together = new CountDownLatch(2);
+
+  @Override
+  protected CamelContext createCamelContext() throws Exception {
+    CamelContext context = super.createCamelContext();
+    // a tiny worker backlog, for the dispatcher to wait for the workers
+    context.getExecutorServiceManager().getDefaultThreadPoolProfile().setMaxQueueSize(2);
+    return context;
+  }
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(parallel).process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            together.countDown();
+            // both events must be processed at the same time to get past this point
+            together.await(MAX_WAIT, TimeUnit.SECONDS);
+          }
+        }).to("mock:parallel");
+        from(ordered).to("mock:ordered");
+        from(backlogged).delay(1).to("mock:backlogged");
+        from(asyncOrdered).delay(header("wait")).asyncDelayed().to("mock:async");
+      }
+    };
+  }
+
+  @Test
+  public void testEventsProcessedConcurrently() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:parallel");
+    mock.expectedMessageCount(2);
+
+    template.sendBody(parallel, 1);
+    template.sendBody(parallel, 2);
+
+    assertMockEndpointsSatisfied();
+    assertEquals(0, together.getCount());
+  }
+
+  @Test
+  public void testEventsOfTheSameKeyStayInOrder() throws Exception {
+    sendAndAssertOrdered(ordered, "mock:ordered");
+  }
+
+  @Test
+  public void testEventsStayInOrderWhenWorkersAreBacklogged() throws Exception {
+    sendAndAssertOrdered(backlogged, "mock:backlogged");
+  }
+
+  @Test
+  public void testEventsStayInOrderThroughAsynchronousRoutes() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:async");
+    List<Object> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      expected.add(i);
+    }
+    mock.expectedBodiesReceived(expected);
+    mock.setResultWaitTime(TimeUnit.SECONDS.toMillis(MAX_WAIT));
+
+    for (int i = 0; i < 20; i++) {
+      Map<String, Object> headers = new HashMap<>();
+      headers.put("group", "a");
+      // each event delayed less than the one before, to overtake it unless held back
+      headers.put("wait", (20 - i) * 5);
+      template.sendBodyAndHeaders(asyncOrdered, i, headers);
+    }
+
+    assertMockEndpointsSatisfied();
+  }
+
+  private void sendAndAssertOrdered(String uri, String mockUri) throws Exception {
+    MockEndpoint mock = getMockEndpoint(mockUri);
+    mock.expectedMessageCount(200);
+    mock.setResultWaitTime(TimeUnit.SECONDS.toMillis(MAX_WAIT));
+
+    for (int i = 0; i < 100; i++) {
+      template.sendBodyAndHeader(uri, i, "group", "a");
+      template.sendBodyAndHeader(uri, i, "group", "b");
+    }
+
+    assertMockEndpointsSatisfied();
+    List<Integer> a = new ArrayList<>();
+    List<Integer> b = new ArrayList<>();
+    for (Exchange exchange : mock.getReceivedExchanges()) {
+      Integer body = exchange.getIn().getBody(Integer.class);
+      if ("a".equals(exchange.getIn().getHeader("group"))) {
+        a.add(body);
+      } else {
+        b.add(body);
+      }
+    }
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, a.get(i).intValue());
+      assertEquals(i, b.get(i).intValue());
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import reactor.event.Event;
+
+import java.util.Map;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorCopyOnWriteHeadersTest extends ReactorBaseTestSupport {
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from("reactor:uri:/cow/in?dispatcher=sync").to("reactor:uri:/cow/out?dispatcher=sync");
+        from("reactor:uri:/cow/out?dispatcher=sync").process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            Event<?> event = exchange.getIn(ReactorMessage.class).getEvent();
+            exchange.getIn().setHeader("shared",
+                event.getHeaders() instanceof ReactorCopyOnWriteHeaders);
+          }
+        }).to("mock:out");
+      }
+    };
+  }
+
+  @Test
+  public void testCopySharesUntilWritten() throws Exception {
+    Event<String> event = Event.wrap("data");
+    event.getHeaders().set("a", "1");
+    event.getHeaders().set("b", "2");
+
+    Event<?> copy = ReactorBinding.copyOnWrite(event);
+    assertEquals("data", copy.getData());
+    assertEquals("1", copy.getHeaders().get("a"));
+    assertFalse(((ReactorCopyOnWriteHeaders) copy.getHeaders()).isWritten());
+    assertEquals(event.getHeaders().asMap(), copy.getHeaders().asMap());
+
+    copy.getHeaders().set("a", "changed");
+    copy.getHeaders().set("c", "3");
+    copy.getHeaders().set("B", null);
+    assertEquals("changed", copy.getHeaders().get("a"));
+    assertFalse(copy.getHeaders().contains("b"));
+    Map<String, Object> headers = copy.getHeaders().asMap();
+    assertEquals(2, headers.size());
+    assertEquals("3", headers.get("c"));
+
+    // the original is left untouched
+    assertEquals("1", event.getHeaders().get("a"));
+    assertEquals("2", event.getHeaders().get("b"));
+    assertFalse(event.getHeaders().contains("c"));
+  }
+
+  @Test
+  public void testRemovedHeaderSetAgain() throws Exception {
+    Event<String> event = Event.wrap("data");
+    event.getHeaders().set("a", "1");
+
+    Event<?> copy = ReactorBinding.copyOnWrite(event);
+    copy.getHeaders().set("a", null);
+    assertNull(copy.getHeaders().get("a"));
+    assertTrue(copy.getHeaders().asMap().isEmpty());
+    copy.getHeaders().set("a", "2");
+    assertEquals("2", copy.getHeaders().get("a"));
+    assertEquals("1", event.getHeaders().get("a"));
+  }
+
+  @Test
+  public void testCopyOfCopyReadsTheOriginal() throws Exception {
+    Event<String> event = Event.wrap("data");
+    event.getHeaders().set("a", "1");
+
+    Event<?> copy = ReactorBinding.copyOnWrite(ReactorBinding.copyOnWrite(event));
+    copy.getHeaders().set("a", "2");
+    assertEquals("2", copy.getHeaders().get("a"));
+    assertEquals("1", event.getHeaders().get("a"));
+
+    // a copy of a written copy sees its writes, and does not write through to it
+    Event<?> copyOfWritten = ReactorBinding.copyOnWrite(copy);
+    assertEquals("2", copyOfWritten.getHeaders().get("a"));
+    copyOfWritten.getHeaders().set("a", "3");
+    assertEquals("2", copy.getHeaders().get("a"));
+  }
+
+  @Test
+  public void testForwardedEventSharesHeaders() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:out");
+    mock.expectedBodiesReceived("hello");
+    mock.message(0).header("color").isEqualTo("red");
+    mock.message(0).header("shared").isEqualTo(true);
+
+    template.sendBodyAndHeader("reactor:uri:/cow/in?dispatcher=sync", "hello", "color", "red");
+
+    assertMockEndpointsSatisfied();
+  }
+}
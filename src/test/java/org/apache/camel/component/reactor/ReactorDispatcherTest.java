@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import reactor.core.Reactor;
+import reactor.event.dispatch.RingBufferDispatcher;
+import reactor.event.dispatch.SynchronousDispatcher;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorDispatcherTest extends ReactorBaseTestSupport {
+
+  protected String ringBufferOptions = "?dispatcher=ringBuffer&bufferSize=256";
+  protected String ringBufferUri = "reactor:uri:/orders/{id}" + ringBufferOptions;
+  protected String ringBufferProducerUri = "reactor:uri:/orders/1" + ringBufferOptions;
+  protected String syncUri = "reactor:uri:/bulk?dispatcher=sync";
+  protected String defaultUri = "reactor:uri:/default";
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(ringBufferUri).to("mock:orders");
+      }
+    };
+  }
+
+  @Test
+  public void testEndpointsShareReactorBySettings() throws Exception {
+    ReactorComponent component = context().getComponent("reactor", ReactorComponent.class);
+    Reactor ringBuffer = context().getEndpoint(ringBufferUri, ReactorEndpoint.class).getReactor();
+    Reactor sync = context().getEndpoint(syncUri, ReactorEndpoint.class).getReactor();
+
+    assertSame(ringBuffer,
+        context().getEndpoint(ringBufferProducerUri, ReactorEndpoint.class).getReactor());
+    assertNotSame(ringBuffer, sync);
+    assertNotSame(component.getReactor(), ringBuffer);
+    assertSame(component.getReactor(),
+        context().getEndpoint(defaultUri, ReactorEndpoint.class).getReactor());
+    assertTrue(ringBuffer.getDispatcher() instanceof RingBufferDispatcher);
+    assertTrue(sync.getDispatcher() instanceof SynchronousDispatcher);
+  }
+
+  @Test
+  public void testRoundTripOnDedicatedDispatcher() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:orders");
+    mock.expectedBodiesReceived("ORDER");
+    mock.expectedHeaderReceived("id", "1");
+
+    template.sendBody(ringBufferProducerUri, "ORDER");
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testEndpointsOnAllDispatchersShareConsumers() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:orders");
+    mock.expectedBodiesReceivedInAnyOrder("DEFAULT", "SYNC");
+
+    template.sendBody("reactor:uri:/orders/2", "DEFAULT");
+    template.sendBody("reactor:uri:/orders/3?dispatcher=sync", "SYNC");
+
+    assertMockEndpointsSatisfied();
+    ReactorComponent component = context().getComponent("reactor", ReactorComponent.class);
+    assertSame(component.getReactor().getConsumerRegistry(),
+        context().getEndpoint(syncUri, ReactorEndpoint.class).getReactor().getConsumerRegistry());
+  }
+
+  @Test
+  public void testDispatchersStopWithTheContext() throws Exception {
+    Reactor ringBuffer = context().getEndpoint(ringBufferUri, ReactorEndpoint.class).getReactor();
+    assertTrue(ringBuffer.getDispatcher().alive());
+
+    context().stop();
+
+    assertFalse(ringBuffer.getDispatcher().alive());
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorEventFilterTest extends ReactorBaseTestSupport {
+
+  protected String filtered = "reactor:uri:/noisy/{level}?dispatcher=sync&filter=level!=debug";
+  protected String distinct = "reactor:uri:/dedup/{name}?dispatcher=sync&distinct=true"
+      + "&distinctKey=sku&distinctSize=2";
+  protected String batched = "reactor:uri:/ticks/{name}?dispatcher=sync&filter=kind=tick"
+      + "&batchSize=2&batchTimeout=2000";
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(filtered).to("mock:filtered");
+        from(distinct).to("mock:distinct");
+        from(batched).to("mock:batched");
+      }
+    };
+  }
+
+  @Test
+  public void testFilterByHeader() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:filtered");
+    mock.expectedBodiesReceived("boot", "oops");
+
+    template.sendBody("reactor:uri:/noisy/info?dispatcher=sync", "boot");
+    template.sendBody("reactor:uri:/noisy/debug?dispatcher=sync", "chatter");
+    template.sendBody("reactor:uri:/noisy/error?dispatcher=sync", "oops");
+
+    assertMockEndpointsSatisfied();
+    assertEquals(1, context().getEndpoint(filtered, ReactorEndpoint.class).getFilteredCount());
+  }
+
+  @Test
+  public void testDistinctWithinLastKeys() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:distinct");
+    mock.expectedBodiesReceived("a", "b", "c", "a again");
+
+    String producer = "reactor:uri:/dedup/item?dispatcher=sync";
+    template.sendBodyAndHeader(producer, "a", "sku", "1");
+    template.sendBodyAndHeader(producer, "a twice", "sku", "1");
+    template.sendBodyAndHeader(producer, "b", "sku", "2");
+    template.sendBodyAndHeader(producer, "c", "sku", "3");
+    // only the last 2 keys are remembered
+    template.sendBodyAndHeader(producer, "a again", "sku", "1");
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testFilterBeforeBatch() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:batched");
+    mock.expectedMessageCount(1);
+    mock.message(0).body().isEqualTo(Arrays.asList(1, 3));
+
+    String producer = "reactor:uri:/ticks/clock?dispatcher=sync";
+    template.sendBodyAndHeader(producer, 1, "kind", "tick");
+    template.sendBodyAndHeader(producer, 2, "kind", "tock");
+    template.sendBodyAndHeader(producer, 3, "kind", "tick");
+
+    assertMockEndpointsSatisfied();
+  }
+}
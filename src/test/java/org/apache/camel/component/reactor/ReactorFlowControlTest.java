@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorFlowControlTest extends ReactorBaseTestSupport {
+
+  private static final int MAX_WAIT = 10;
+
+  protected String dispatcher = "?dispatcher=workQueue&poolSize=1";
+  protected String consumer = "reactor:uri:/flow/{policy}" + dispatcher;
+  protected String failing = "reactor:uri:/flow/fail" + dispatcher
+      + "&maxPending=2&overflowPolicy=fail";
+  protected String dropping = "reactor:uri:/flow/drop" + dispatcher
+      + "&maxPending=2&overflowPolicy=drop";
+  protected String blocking = "reactor:uri:/flow/block" + dispatcher
+      + "&maxPending=2&overflowPolicy=block";
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final CountDownLatch received = new CountDownLatch(2);
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(consumer).process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            received.countDown();
+            release.await(MAX_WAIT, TimeUnit.SECONDS);
+          }
+        });
+      }
+    };
+  }
+
+  @Test
+  public void testFailWhenFull() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(failing, ReactorEndpoint.class);
+    template.sendBody(endpoint, "1");
+    template.sendBody(endpoint, "2");
+    assertEquals(2, endpoint.getPendingCount());
+    try {
+      template.sendBody(endpoint, "3");
+      fail("Should have been rejected");
+    } catch (CamelExecutionException e) {
+      assertIsInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    release.countDown();
+    assertTrue(received.await(MAX_WAIT, TimeUnit.SECONDS));
+    awaitNoPending(endpoint);
+  }
+
+  @Test
+  public void testDropWhenFull() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(dropping, ReactorEndpoint.class);
+    template.sendBody(endpoint, "1");
+    template.sendBody(endpoint, "2");
+    template.sendBody(endpoint, "3");
+    assertEquals(2, endpoint.getPendingCount());
+    assertEquals(1, endpoint.getDroppedCount());
+
+    release.countDown();
+    assertTrue(received.await(MAX_WAIT, TimeUnit.SECONDS));
+    awaitNoPending(endpoint);
+  }
+
+  @Test
+  public void testBlockFailsWhenTooManyWaiting() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(blocking, ReactorEndpoint.class);
+    template.sendBody(endpoint, "1");
+    template.sendBody(endpoint, "2");
+    Future<Object> third = template.asyncSendBody(endpoint, "3");
+    Future<Object> fourth = template.asyncSendBody(endpoint, "4");
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(MAX_WAIT);
+    while (endpoint.getWaitingCount() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(2, endpoint.getWaitingCount());
+    try {
+      template.sendBody(endpoint, "5");
+      fail("Should have been rejected");
+    } catch (CamelExecutionException e) {
+      assertIsInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    release.countDown();
+    third.get(MAX_WAIT, TimeUnit.SECONDS);
+    fourth.get(MAX_WAIT, TimeUnit.SECONDS);
+    awaitNoPending(endpoint);
+  }
+
+  private void awaitNoPending(ReactorEndpoint endpoint) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(MAX_WAIT);
+    while (endpoint.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, endpoint.getPendingCount());
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import reactor.event.Event;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorHeaderModeTest extends ReactorBaseTestSupport {
+
+  protected String viewUri = "reactor:uri:/headers/view?headerMode=view";
+  protected String copyUri = "reactor:uri:/headers/copy";
+
+  @Test
+  public void testEventPropertiesAsHeaders() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(copyUri, ReactorEndpoint.class);
+    Event<String> event = Event.wrap("BODY", "/reply/here");
+    event.getHeaders().set("foo", "1");
+
+    Message in = endpoint.createExchange(event).getIn();
+    assertEquals("1", in.getHeader("foo"));
+    assertEquals(event.getId(), in.getHeader("id"));
+    assertEquals(event.getId(), in.getHeader(ReactorConstants.EVENT_ID));
+    assertEquals("/reply/here", in.getHeader("replyTo"));
+    assertEquals("/reply/here", in.getHeader(ReactorConstants.REPLY_TO));
+    assertNull(in.getHeader("missing"));
+  }
+
+  @Test
+  public void testViewResolvesEventPropertiesBeforeAndAfterHeaderAccess() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(viewUri, ReactorEndpoint.class);
+    Event<String> event = Event.wrap("BODY", "/reply/here");
+    event.getHeaders().set("foo", "1");
+
+    Message in = endpoint.createExchange(event).getIn();
+    assertEquals(event.getId(), in.getHeader("id"));
+    assertEquals("BODY", in.getHeader("data"));
+    in.setHeader("bar", "2");
+    assertTrue(in.getHeaders() instanceof ReactorEventHeaders);
+    assertEquals(event.getId(), in.getHeader("id"));
+    assertEquals("BODY", in.getHeader("data"));
+    assertSame(event.getHeaders(), in.getHeader("headers"));
+    assertEquals("/reply/here", in.getHeader("replyTo"));
+    assertEquals("1", in.getHeader("foo"));
+  }
+
+  @Test
+  public void testViewAppliesOnlyChangedHeaders() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(viewUri, ReactorEndpoint.class);
+    Event<String> event = Event.wrap("BODY");
+    event.getHeaders().set("foo", "1");
+    event.getHeaders().set("removed", "x");
+
+    Exchange exchange = endpoint.createExchange(event);
+    Message in = exchange.getIn();
+    assertEquals("1", in.getHeader("foo"));
+    in.setHeader("bar", "2");
+    in.removeHeader("removed");
+    assertTrue(in.getHeaders() instanceof ReactorEventHeaders);
+    assertEquals("2", in.getHeader("bar"));
+    assertNull(in.getHeader("removed"));
+
+    Event<?> out = endpoint.getBinding().createReactorEvent(exchange, in);
+    assertEquals("BODY", out.getData());
+    assertEquals("1", out.getHeaders().get("foo"));
+    assertEquals("2", out.getHeaders().get("bar"));
+    assertFalse(out.getHeaders().contains("removed"));
+
+    // the incoming event is never modified
+    assertFalse(event.getHeaders().contains("bar"));
+    assertTrue(event.getHeaders().contains("removed"));
+  }
+
+  @Test
+  public void testViewSharesUnchangedHeaders() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(viewUri, ReactorEndpoint.class);
+    Event<String> event = Event.wrap("BODY");
+    event.getHeaders().set("foo", "1");
+
+    Exchange exchange = endpoint.createExchange(event);
+    assertEquals("1", exchange.getIn().getHeaders().get("foo"));
+
+    Event<?> out = endpoint.getBinding().createReactorEvent(exchange, exchange.getIn());
+    assertTrue(out.getHeaders() instanceof ReactorCopyOnWriteHeaders);
+    assertFalse(((ReactorCopyOnWriteHeaders) out.getHeaders()).isWritten());
+    assertEquals("1", out.getHeaders().get("foo"));
+    assertEquals("BODY", out.getData());
+
+    // headers set on the outgoing event, as a correlation id, stay off the incoming one
+    out.getHeaders().set(ReactorConstants.CORRELATION_ID, 1L);
+    assertFalse(event.getHeaders().contains(ReactorConstants.CORRELATION_ID));
+  }
+
+  @Test
+  public void testViewFiltersUnchangedHeaders() throws Exception {
+    ReactorEndpoint endpoint =
+        context().getEndpoint(viewUri + "&alwaysCopyMessage=false", ReactorEndpoint.class);
+    Event<String> event = Event.wrap("BODY");
+    event.getHeaders().set("foo", "1");
+    event.getHeaders().set(ReactorConstants.CORRELATION_ID, 1L);
+    event.getHeaders().set(ReactorConstants.JOURNAL_POSITION, 2L);
+
+    Exchange exchange = endpoint.createExchange(event);
+    Event<?> out = endpoint.getBinding().createReactorEvent(exchange, exchange.getIn());
+    assertEquals("1", out.getHeaders().get("foo"));
+    assertFalse(out.getHeaders().contains(ReactorConstants.CORRELATION_ID));
+    assertFalse(out.getHeaders().contains(ReactorConstants.JOURNAL_POSITION));
+
+    exchange.getIn().setHeader("bar", "2");
+    out = endpoint.getBinding().createReactorEvent(exchange, exchange.getIn());
+    assertEquals("2", out.getHeaders().get("bar"));
+    assertFalse(out.getHeaders().contains(ReactorConstants.CORRELATION_ID));
+
+    // not even without alwaysCopyMessage is the incoming event modified
+    assertFalse(event.getHeaders().contains("bar"));
+    assertEquals(1L, event.getHeaders().get(ReactorConstants.CORRELATION_ID));
+    assertEquals(2L, event.getHeaders().get(ReactorConstants.JOURNAL_POSITION));
+  }
+}
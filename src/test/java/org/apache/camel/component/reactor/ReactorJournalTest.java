@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.util.FileUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import reactor.event.Event;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorJournalTest extends ReactorBaseTestSupport {
+
+  private static final int MAX_WAIT = 10;
+  private static final File DIRECTORY = new File("target/journal");
+
+  protected String journal = "?dispatcher=sync&journal=true&journalDirectory=target/journal";
+  protected String consumer = "reactor:uri:/journal/{name}" + journal;
+  protected String producer = "reactor:uri:/journal/orders" + journal;
+  protected String filtered = "reactor:uri:/filtered/{name}" + journal + "&filter=keep";
+
+  private final List<Object> received = new CopyOnWriteArrayList<>();
+  private volatile CountDownLatch attempts = new CountDownLatch(2);
+  private volatile boolean failing;
+
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    FileUtil.removeDir(DIRECTORY);
+    super.setUp();
+  }
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(consumer).process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            attempts.countDown();
+            if (failing) {
+              throw new IllegalStateException("Not processed");
+            }
+            assertNotNull(exchange.getIn().getHeader(ReactorConstants.JOURNAL_POSITION));
+            received.add(exchange.getIn().getBody());
+          }
+        });
+        from(filtered).to("mock:filtered");
+      }
+    };
+  }
+
+  @Test
+  public void testProcessedEventsAcknowledged() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(producer, ReactorEndpoint.class);
+    template.sendBody(endpoint, "a");
+    template.sendBody(endpoint, "b");
+
+    assertTrue(attempts.await(MAX_WAIT, TimeUnit.SECONDS));
+    assertEquals(Arrays.<Object>asList("a", "b"), received);
+    assertEquals(0, endpoint.getJournalPendingCount());
+    assertTrue(endpoint.getJournal().getSyncCount() > 0);
+  }
+
+  @Test
+  public void testUnacknowledgedEventsReplayedOnRestart() throws Exception {
+    failing = true;
+    ReactorEndpoint endpoint = context().getEndpoint(producer, ReactorEndpoint.class);
+    template.sendBody(endpoint, "a");
+    template.sendBody(endpoint, "b");
+    assertTrue(attempts.await(MAX_WAIT, TimeUnit.SECONDS));
+    assertTrue(received.isEmpty());
+    assertEquals(2, endpoint.getJournalPendingCount());
+
+    failing = false;
+    attempts = new CountDownLatch(2);
+    context().stop();
+    context().start();
+
+    assertTrue(attempts.await(MAX_WAIT, TimeUnit.SECONDS));
+    assertEquals(Arrays.<Object>asList("a", "b"), received);
+  }
+
+  @Test
+  public void testFilteredEventsAcknowledged() throws Exception {
+    getMockEndpoint("mock:filtered").expectedMessageCount(0);
+    ReactorEndpoint endpoint =
+        context().getEndpoint("reactor:uri:/filtered/orders" + journal, ReactorEndpoint.class);
+    template.sendBody(endpoint, "dropped");
+
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(MAX_WAIT);
+    while (endpoint.getJournalPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, endpoint.getJournalPendingCount());
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testAcknowledgedSegmentsDeleted() throws Exception {
+    ReactorJournal journal =
+        new ReactorJournal(DIRECTORY, "segments", 1024, new DefaultReactorEventSerializer());
+    final CountDownLatch synced = new CountDownLatch(10);
+    journal.start(context().getExecutorServiceManager().newSingleThreadExecutor(this, "journal"));
+    for (int i = 0; i < 10; i++) {
+      journal.ack(journal.append("/journal/orders", Event.wrap("event " + i), new Runnable() {
+        @Override
+        public void run() {
+          synced.countDown();
+        }
+      }));
+    }
+    assertTrue(synced.await(MAX_WAIT, TimeUnit.SECONDS));
+    assertEquals(0, journal.getPendingCount());
+    journal.close();
+
+    journal = new ReactorJournal(DIRECTORY, "segments", 1024, new DefaultReactorEventSerializer());
+    assertEquals(0, journal.getPendingCount());
+    // the last segment of the events and of their acknowledgements
+    int segments = 0;
+    for (String file : DIRECTORY.list()) {
+      if (file.startsWith("segments-")) {
+        segments++;
+      }
+    }
+    assertEquals(2, segments);
+    journal.close();
+  }
+}
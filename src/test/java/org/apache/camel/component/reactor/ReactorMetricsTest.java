@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.JndiRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorMetricsTest extends ReactorBaseTestSupport {
+
+  protected String measured = "reactor:uri:/metrics/echo?dispatcher=sync&metrics=true";
+  protected String timingOut =
+      "reactor:uri:/metrics/nobody?dispatcher=sync&metrics=true&requestTimeout=100";
+  protected String pending =
+      "reactor:uri:/metrics/pending?dispatcher=sync&metrics=true&synchronous=false";
+  protected String custom = "reactor:uri:/metrics/custom?dispatcher=sync&metricsFactory=#counting";
+
+  private final AtomicInteger published = new AtomicInteger();
+  private final CountDownLatch reply = new CountDownLatch(1);
+
+  @Override
+  protected JndiRegistry createRegistry() throws Exception {
+    JndiRegistry registry = super.createRegistry();
+    registry.bind("counting", new ReactorMetricsFactory() {
+      @Override
+      public ReactorMetrics createMetrics(ReactorEndpoint endpoint) {
+        return new DefaultReactorMetrics() {
+          @Override
+          public void published(int events) {
+            published.addAndGet(events);
+          }
+        };
+      }
+    });
+    return registry;
+  }
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(measured).transform(body().prepend("echo "));
+        from(custom).to("mock:custom");
+        // off the dispatcher thread, for the event to be delivered while awaiting the reply
+        from(pending).threads(1).process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            reply.await(10, TimeUnit.SECONDS);
+          }
+        });
+      }
+    };
+  }
+
+  @Test
+  public void testCountsAndLatencies() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(measured, ReactorEndpoint.class);
+    for (int i = 0; i < 3; i++) {
+      template.sendBody(endpoint, i);
+    }
+    assertEquals("echo 3", template.requestBody(endpoint, "3", String.class));
+
+    assertEquals(4, endpoint.getPublishedCount());
+    assertEquals(4, endpoint.getConsumedCount());
+    assertEquals(0, endpoint.getDispatcherBacklog());
+    assertEquals(0, endpoint.getReplyTimeoutCount());
+    assertTrue(endpoint.getRoundTripMean() > 0);
+    assertTrue(endpoint.getProcessingMean() > 0);
+
+    endpoint.resetMetrics();
+    assertEquals(0, endpoint.getPublishedCount());
+  }
+
+  @Test
+  public void testReplyTimeoutCounted() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(timingOut, ReactorEndpoint.class);
+    try {
+      template.requestBody(endpoint, "hello");
+      fail("Should have timed out");
+    } catch (CamelExecutionException e) {
+      // expected
+    }
+    assertEquals(1, endpoint.getReplyTimeoutCount());
+    assertEquals(0, endpoint.getDispatcherBacklog());
+  }
+
+  @Test
+  public void testRequestsAwaitingReplyNotInBacklog() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(pending, ReactorEndpoint.class);
+    Future<Object> answer = template.asyncRequestBody(endpoint, "hello");
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while (endpoint.getConsumedCount() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    // dispatched once the dispatcher is done delivering it, right after the consumer got it
+    while (endpoint.getDispatcherBacklog() != 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, endpoint.getPublishedCount());
+    assertEquals(0, endpoint.getDispatcherBacklog());
+
+    reply.countDown();
+    answer.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testMetricsFactory() throws Exception {
+    getMockEndpoint("mock:custom").expectedMessageCount(2);
+    template.sendBody(custom, "a");
+    template.sendBody(custom, "b");
+    assertMockEndpointsSatisfied();
+    assertEquals(2, published.get());
+  }
+}
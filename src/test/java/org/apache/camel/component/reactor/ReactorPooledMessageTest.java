@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorPooledMessageTest extends ReactorBaseTestSupport {
+
+  protected String consumer = "reactor:uri:/pooled/{name}?dispatcher=sync&pooledMessages=true";
+  protected String producer = "reactor:uri:/pooled/item?dispatcher=sync";
+
+  private final List<Exchange> exchanges = new ArrayList<>();
+  private final List<Message> messages = new ArrayList<>();
+  private final List<Object> colors = new ArrayList<>();
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(consumer).process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            exchanges.add(exchange);
+            messages.add(exchange.getIn());
+            colors.add(exchange.getIn().getHeader("color"));
+            if ("keep".equals(exchange.getIn().getBody())) {
+              exchange.setProperty(ReactorConstants.RETAINED, true);
+            }
+          }
+        }).transform(body().prepend("echo "));
+      }
+    };
+  }
+
+  @Test
+  public void testMessageIsRecycled() throws Exception {
+    template.sendBodyAndHeader(producer, "1", "color", "red");
+    template.sendBody(producer, "2");
+    assertEquals("echo 3", template.requestBody(producer, "3", String.class));
+
+    assertEquals(3, exchanges.size());
+    // a new exchange for every event, with the same message
+    assertNotSame(exchanges.get(0), exchanges.get(1));
+    assertSame(messages.get(0), messages.get(1));
+    assertSame(messages.get(0), messages.get(2));
+    // the headers of the previous event are not leaked
+    assertEquals("red", colors.get(0));
+    assertNull(colors.get(1));
+
+    ReactorEndpoint endpoint = context().getEndpoint(consumer, ReactorEndpoint.class);
+    assertEquals(1, endpoint.getPooledMessagesCreated());
+    assertEquals(0, endpoint.getPooledMessagesDiscarded());
+  }
+
+  @Test
+  public void testRetainedMessageIsNotRecycled() throws Exception {
+    template.sendBody(producer, "keep");
+    template.sendBody(producer, "next");
+
+    assertEquals(2, messages.size());
+    assertNotSame(messages.get(0), messages.get(1));
+    assertEquals("keep", messages.get(0).getBody());
+
+    ReactorEndpoint endpoint = context().getEndpoint(consumer, ReactorEndpoint.class);
+    assertEquals(2, endpoint.getPooledMessagesCreated());
+    assertEquals(1, endpoint.getPooledMessagesDiscarded());
+  }
+}
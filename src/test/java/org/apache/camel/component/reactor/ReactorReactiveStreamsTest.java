@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorReactiveStreamsTest extends ReactorBaseTestSupport {
+
+  protected String producer = "reactor:uri:/streams/out?dispatcher=sync";
+  protected String published = "reactor:uri:/streams/{name}?dispatcher=sync&prefetch=8";
+  protected String failing =
+      "reactor:uri:/streams/{name}?dispatcher=sync&prefetch=2&overflowPolicy=fail";
+  protected String subscribed = "reactor:uri:/streams/in?dispatcher=sync&prefetch=2";
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from("reactor:uri:/streams/in?dispatcher=sync").to("mock:in");
+      }
+    };
+  }
+
+  @Test
+  public void testPublisherHonoursDemand() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(published, ReactorEndpoint.class);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    endpoint.createPublisher().subscribe(subscriber);
+
+    subscriber.subscription.request(2);
+    for (int i = 1; i <= 5; i++) {
+      template.sendBody(producer, i);
+    }
+    assertEquals(2, subscriber.bodies.size());
+
+    subscriber.subscription.request(3);
+    assertEquals(5, subscriber.bodies.size());
+    assertEquals(3, subscriber.bodies.get(2));
+    assertEquals("out", subscriber.exchanges.get(4).getIn().getHeader("name"));
+
+    subscriber.subscription.cancel();
+    template.sendBody(producer, 6);
+    subscriber.subscription.request(1);
+    assertEquals(5, subscriber.bodies.size());
+  }
+
+  @Test
+  public void testPublisherFailsWhenBufferFull() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(failing, ReactorEndpoint.class);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    endpoint.createPublisher().subscribe(subscriber);
+
+    for (int i = 1; i <= 3; i++) {
+      template.sendBody(producer, i);
+    }
+    assertIsInstanceOf(RejectedExecutionException.class, subscriber.error);
+    assertTrue(subscriber.bodies.isEmpty());
+  }
+
+  @Test
+  public void testSubscriberRequestsAsEventsAreDelivered() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:in");
+    mock.expectedBodiesReceived("a", "b", "c");
+
+    ReactorEndpoint endpoint = context().getEndpoint(subscribed, ReactorEndpoint.class);
+    Subscriber<Object> subscriber = endpoint.createSubscriber();
+    final AtomicLong requested = new AtomicLong();
+    subscriber.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+        requested.addAndGet(n);
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+    assertEquals(2, requested.get());
+
+    subscriber.onNext("a");
+    subscriber.onNext("b");
+    subscriber.onNext("c");
+
+    assertMockEndpointsSatisfied();
+    // one more item requested for each event delivered
+    assertEquals(5, requested.get());
+  }
+
+  private static final class RecordingSubscriber implements Subscriber<Exchange> {
+
+    private final List<Exchange> exchanges = new CopyOnWriteArrayList<>();
+    private final List<Object> bodies = new CopyOnWriteArrayList<>();
+    private volatile Subscription subscription;
+    private volatile Throwable error;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Exchange exchange) {
+      exchanges.add(exchange);
+      bodies.add(exchange.getIn().getBody());
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public void onComplete() {
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorRegistrationManagementTest extends ReactorBaseTestSupport {
+
+  protected String ops = "reactor:uri:/ops/{name}?dispatcher=sync";
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(ops).routeId("ops").to("mock:ops");
+      }
+    };
+  }
+
+  private ReactorConsumer getConsumer() {
+    return (ReactorConsumer) context().getRoute("ops").getConsumer();
+  }
+
+  @Test
+  public void testPauseAndResume() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:ops");
+    mock.expectedBodiesReceived("before", "after");
+
+    ReactorConsumer consumer = getConsumer();
+    template.sendBody("reactor:uri:/ops/a?dispatcher=sync", "before");
+    assertTrue(consumer.pauseSelector("/ops/{name}"));
+    assertEquals(Arrays.asList("/ops/{name} (paused)"), consumer.getSelectors());
+    template.sendBody("reactor:uri:/ops/a?dispatcher=sync", "shed");
+    assertTrue(consumer.resumeSelector("/ops/{name}"));
+    template.sendBody("reactor:uri:/ops/a?dispatcher=sync", "after");
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testAddAndCancelSelector() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:ops");
+    mock.expectedBodiesReceived("extra");
+    mock.message(0).header("name").isEqualTo("x");
+
+    ReactorConsumer consumer = getConsumer();
+    consumer.addSelector("/extra/{name}");
+    assertEquals(Arrays.asList("/ops/{name}", "/extra/{name}"), consumer.getSelectors());
+    template.sendBody("reactor:uri:/extra/x?dispatcher=sync", "extra");
+
+    assertTrue(consumer.cancelSelector("/extra/{name}"));
+    assertFalse(consumer.cancelSelector("/extra/{name}"));
+    template.sendBody("reactor:uri:/extra/x?dispatcher=sync", "cancelled");
+
+    assertMockEndpointsSatisfied();
+    assertEquals(Arrays.asList("/ops/{name}"), consumer.getSelectors());
+  }
+
+  @Test
+  public void testAddedSelectorsCancelledOnStop() throws Exception {
+    ReactorConsumer consumer = getConsumer();
+    consumer.addSelector("/extra/{name}");
+    context().stopRoute("ops");
+    assertTrue(consumer.getSelectors().isEmpty());
+
+    context().startRoute("ops");
+    assertEquals(Arrays.asList("/ops/{name}"), getConsumer().getSelectors());
+  }
+}
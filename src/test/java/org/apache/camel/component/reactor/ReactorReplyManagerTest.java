@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorReplyManagerTest extends ReactorBaseTestSupport {
+
+  protected String echo = "reactor:uri:/reply/echo?dispatcher=threadPool";
+  protected String echoRequest = "reactor:uri:/reply/echo?dispatcher=threadPool&replyManager=true";
+  protected String nobody =
+      "reactor:uri:/reply/nobody?dispatcher=threadPool&replyManager=true&requestTimeout=200";
+  protected String reverse = "reactor:uri:/reply/reverse?dispatcher=threadPool&synchronous=false";
+  protected String reverseRequest =
+      "reactor:uri:/reply/reverse?dispatcher=threadPool&replyManager=true";
+
+  protected int requests = 10;
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(echo).transform(body().prepend("echo "));
+        // the later the request, the sooner its reply
+        from(reverse).to("mock:received").process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            int request = exchange.getIn().getBody(Integer.class);
+            exchange.getIn().setHeader("wait", (requests - request) * 50);
+          }
+        }).delay(header("wait")).asyncDelayed()
+            .transform(body().prepend("echo ")).to("mock:replied");
+      }
+    };
+  }
+
+  @Test
+  public void testRepliesAreCorrelated() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      assertEquals("echo " + i, template.requestBody(echoRequest, String.valueOf(i), String.class));
+    }
+  }
+
+  @Test
+  public void testTimeoutWithoutReply() throws Exception {
+    try {
+      template.requestBody(nobody, "hello");
+      fail("Should have timed out");
+    } catch (CamelExecutionException e) {
+      assertIsInstanceOf(ExchangeTimedOutException.class, e.getCause());
+    }
+  }
+
+  @Test
+  public void testConcurrentRepliesInReverseOrderAreCorrelated() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(reverseRequest, ReactorEndpoint.class);
+    int registered = ReactorRequestTimeoutTest.countRegistrations(endpoint.getReactor());
+    ReactorProducer producer = (ReactorProducer) endpoint.createProducer();
+    producer.start();
+    try {
+      MockEndpoint received = getMockEndpoint("mock:received");
+      received.expectedMessageCount(requests);
+      String[] replies = new String[requests];
+      for (int i = 0; i < requests; i++) {
+        replies[requests - 1 - i] = "echo " + i;
+      }
+      getMockEndpoint("mock:replied").expectedBodiesReceived((Object[]) replies);
+
+      final Exchange[] exchanges = new Exchange[requests];
+      final CountDownLatch done = new CountDownLatch(requests);
+      for (int i = 0; i < requests; i++) {
+        exchanges[i] = endpoint.createExchange(ExchangePattern.InOut);
+        exchanges[i].getIn().setBody(String.valueOf(i));
+        producer.process(exchanges[i], new AsyncCallback() {
+          @Override
+          public void done(boolean doneSync) {
+            done.countDown();
+          }
+        });
+      }
+
+      // all the requests in flight share the one reply selector of the reply manager
+      received.assertIsSatisfied();
+      assertEquals(registered + 1, ReactorRequestTimeoutTest.countRegistrations(endpoint
+          .getReactor()));
+
+      assertTrue("Replies not received", done.await(10, TimeUnit.SECONDS));
+      assertMockEndpointsSatisfied();
+      for (int i = 0; i < requests; i++) {
+        assertNull(exchanges[i].getException());
+        assertEquals("echo " + i, exchanges[i].getOut().getBody(String.class));
+      }
+      assertEquals(0, producer.getReplyManager().getWaitingCount());
+      assertEquals(registered + 1, ReactorRequestTimeoutTest.countRegistrations(endpoint
+          .getReactor()));
+    } finally {
+      producer.stop();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import reactor.core.Reactor;
+import reactor.event.registry.Registration;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorRequestTimeoutTest extends ReactorBaseTestSupport {
+
+  protected String echo = "reactor:uri:/timeout/echo?dispatcher=sync";
+  protected String echoRequest = "reactor:uri:/timeout/echo?dispatcher=sync&requestTimeout=1000";
+  protected String nobody = "reactor:uri:/timeout/nobody?dispatcher=sync&requestTimeout=200";
+  protected String slow = "reactor:uri:/timeout/slow";
+  protected String slowRequest =
+      "reactor:uri:/timeout/slow?dispatcher=threadPool&requestTimeout=200";
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(echo).transform(body().prepend("echo "));
+        from(slow).delay(500).transform(constant("late")).to("mock:late");
+        from("direct:timeout").doTry().to(nobody).doCatch(ExchangeTimedOutException.class)
+            .process(new Processor() {
+              @Override
+              public void process(Exchange exchange) throws Exception {
+                exchange.getIn().setBody(Thread.currentThread().getName());
+              }
+            }).end();
+      }
+    };
+  }
+
+  @Test
+  public void testReplyWithinTimeout() throws Exception {
+    assertEquals("echo hello", template.requestBody(echoRequest, "hello", String.class));
+  }
+
+  @Test
+  public void testTimeoutWithoutReply() throws Exception {
+    try {
+      template.requestBody(nobody, "hello");
+      fail("Should have timed out");
+    } catch (CamelExecutionException e) {
+      assertIsInstanceOf(ExchangeTimedOutException.class, e.getCause());
+    }
+  }
+
+  @Test
+  public void testTimeoutCompletedOffTheTimerThread() throws Exception {
+    String thread = template.requestBody("direct:timeout", "hello", String.class);
+    assertTrue(thread, thread.contains("ReactorRequestTimeout"));
+  }
+
+  @Test
+  public void testReplyRegistrationCancelledOnTimeout() throws Exception {
+    ReactorEndpoint endpoint = context().getEndpoint(slowRequest, ReactorEndpoint.class);
+    int registered = countRegistrations(endpoint.getReactor());
+    getMockEndpoint("mock:late").expectedMessageCount(1);
+
+    try {
+      template.requestBody(endpoint, "hello");
+      fail("Should have timed out");
+    } catch (CamelExecutionException e) {
+      assertIsInstanceOf(ExchangeTimedOutException.class, e.getCause());
+    }
+    assertEquals(registered, countRegistrations(endpoint.getReactor()));
+
+    assertMockEndpointsSatisfied();
+    awaitLateReply();
+    assertEquals(registered, countRegistrations(endpoint.getReactor()));
+  }
+
+  @Test
+  public void testNoReplyWaitingAfterTimeoutWithReplyManager() throws Exception {
+    ReactorEndpoint endpoint =
+        context().getEndpoint(slowRequest + "&replyManager=true", ReactorEndpoint.class);
+    ReactorProducer producer = (ReactorProducer) endpoint.createProducer();
+    producer.start();
+    try {
+      // the reply selector of the reply manager included
+      int registered = countRegistrations(endpoint.getReactor());
+      getMockEndpoint("mock:late").expectedMessageCount(1);
+
+      Exchange exchange = endpoint.createExchange(ExchangePattern.InOut);
+      exchange.getIn().setBody("hello");
+      producer.process(exchange);
+      assertIsInstanceOf(ExchangeTimedOutException.class, exchange.getException());
+      assertEquals(0, producer.getReplyManager().getWaitingCount());
+      assertEquals(registered, countRegistrations(endpoint.getReactor()));
+
+      assertMockEndpointsSatisfied();
+      awaitLateReply();
+      assertEquals(0, producer.getReplyManager().getWaitingCount());
+      assertEquals(registered, countRegistrations(endpoint.getReactor()));
+    } finally {
+      producer.stop();
+    }
+  }
+
+  /**
+   * Leaves the consumer time to send its reply once its exchange reached the mock endpoint.
+   */
+  private static void awaitLateReply() throws InterruptedException {
+    Thread.sleep(100);
+  }
+
+  static int countRegistrations(Reactor reactor) {
+    int count = 0;
+    for (Registration<?> registration : reactor.getConsumerRegistry()) {
+      if (!registration.isCancelled()) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.CamelExchangeException;
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorRingBufferTest extends ReactorBaseTestSupport {
+
+  protected String orders = "reactor:ringbuffer:orders?bufferSize=64";
+  protected String echo = "reactor:ringbuffer:echo?bufferSize=64&waitStrategy=yielding";
+  protected String pool = "reactor:ringbuffer:pool?bufferSize=64&concurrentConsumers=3";
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(orders).to("mock:orders");
+        from(echo).transform(body().prepend("echo "));
+        from(pool).to("mock:pool");
+      }
+    };
+  }
+
+  @Test
+  public void testInOnly() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:orders");
+    mock.expectedBodiesReceived(1, 2, 3);
+    mock.allMessages().header("customer").isEqualTo("acme");
+
+    for (int i = 1; i <= 3; i++) {
+      template.sendBodyAndHeader(orders, i, "customer", "acme");
+    }
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testInOut() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      assertEquals("echo " + i, template.requestBody(echo, String.valueOf(i), String.class));
+    }
+  }
+
+  @Test
+  public void testInOutWithoutConsumerFails() throws Exception {
+    try {
+      template.requestBody("reactor:ringbuffer:nobody?bufferSize=64", "hello");
+      fail("Should have failed without consumer");
+    } catch (CamelExecutionException e) {
+      assertIsInstanceOf(CamelExchangeException.class, e.getCause());
+    }
+  }
+
+  @Test
+  public void testWorkerPoolWrapsAround() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:pool");
+    mock.expectedMessageCount(200);
+
+    for (int i = 0; i < 200; i++) {
+      template.sendBody(pool, i);
+    }
+
+    assertMockEndpointsSatisfied();
+  }
+}
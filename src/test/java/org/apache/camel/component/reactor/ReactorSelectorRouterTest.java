@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import reactor.core.Reactor;
+import reactor.event.Event;
+import reactor.event.selector.Selector;
+import reactor.event.selector.Selectors;
+import reactor.function.Consumer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorSelectorRouterTest extends ReactorBaseTestSupport {
+
+  protected String order = "reactor:uri:/orders/{region}/{id}?dispatcher=sync";
+  protected String allOrders = "reactor:uri:/orders/**?dispatcher=sync";
+  protected String shipments = "reactor:regex:shipment.(.*)?dispatcher=sync";
+
+  @Override
+  protected CamelContext createCamelContext() throws Exception {
+    CamelContext context = super.createCamelContext();
+    ReactorComponent component = new ReactorComponent();
+    component.setSelectorRouter(true);
+    component.setSelectorCacheSize(2);
+    context.addComponent("reactor", component);
+    return context;
+  }
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(order).routeId("order").to("mock:order");
+        from(allOrders).to("mock:allOrders");
+        from(shipments).to("mock:shipments");
+      }
+    };
+  }
+
+  @Test
+  public void testUriTemplates() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:order");
+    mock.expectedBodiesReceived("a", "b");
+    mock.message(0).header("region").isEqualTo("eu");
+    mock.message(0).header("id").isEqualTo("1");
+    mock.message(1).header("region").isEqualTo("us");
+    getMockEndpoint("mock:allOrders").expectedBodiesReceived("a", "b", "c");
+
+    template.sendBody("reactor:uri:/orders/eu/1?dispatcher=sync", "a");
+    template.sendBody("reactor:uri:/orders/us/2?dispatcher=sync", "b");
+    template.sendBody("reactor:uri:/orders/eu?dispatcher=sync", "c");
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testRegex() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:shipments");
+    mock.expectedBodiesReceived("x");
+    mock.message(0).header("group1").isEqualTo("eu");
+
+    template.sendBody("reactor:shipment.eu?dispatcher=sync", "x");
+    template.sendBody("reactor:parcel.eu?dispatcher=sync", "y");
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testStoppedRouteNoLongerMatches() throws Exception {
+    getMockEndpoint("mock:order").expectedBodiesReceived("a");
+    getMockEndpoint("mock:allOrders").expectedBodiesReceived("a", "b");
+
+    template.sendBody("reactor:uri:/orders/eu/1?dispatcher=sync", "a");
+    context().stopRoute("order");
+    template.sendBody("reactor:uri:/orders/eu/1?dispatcher=sync", "b");
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testStartedRouteMatchesCachedKey() throws Exception {
+    getMockEndpoint("mock:order").expectedBodiesReceived("b");
+    getMockEndpoint("mock:allOrders").expectedBodiesReceived("a", "b");
+
+    context().stopRoute("order");
+    template.sendBody("reactor:uri:/orders/eu/1?dispatcher=sync", "a");
+    context().startRoute("order");
+    template.sendBody("reactor:uri:/orders/eu/1?dispatcher=sync", "b");
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testUriTemplatesMatchAsReactorSelectors() throws Exception {
+    String[] templates =
+        {"/a/b", "/a/{x}", "/{x}/{y}", "/a/**", "/**", "/a/*", "/a.b", "/a/{x}.json",
+            "/a/{x}/**", "/a/{x}{y}"};
+    String[] keys =
+        {"/", "//", "/a", "/a/", "/a//", "/a/b", "/a/b/", "/a/b/c", "/a/b.c", "/a.b", "/aXb",
+            "/a/b.json", "/a/.json", "/b/c", "a/b"};
+    Reactor reactor = context().getEndpoint(order, ReactorEndpoint.class).getReactor();
+    // a cache smaller than the keys, for the second round to be resolved again in part
+    ReactorSelectorRouter router = new ReactorSelectorRouter(reactor, 4);
+    final Map<String, Map<String, Object>> received = new HashMap<>();
+    try {
+      for (final String template : templates) {
+        router.on(SelectorType.uri, template, new Consumer<Event<?>>() {
+          @Override
+          public void accept(Event<?> event) {
+            received.put(template, new HashMap<>(event.getHeaders().asMap()));
+          }
+        });
+      }
+      for (int round = 0; round < 2; round++) {
+        for (String key : keys) {
+          received.clear();
+          Event<String> event = Event.wrap("body");
+          event.setKey(key);
+          router.accept(event);
+          for (String template : templates) {
+            Selector selector = Selectors.uri(template);
+            boolean matches = selector.matches(key);
+            assertEquals(template + " on " + key, matches, received.containsKey(template));
+            Map<String, Object> headers =
+                matches && selector.getHeaderResolver() != null ? selector.getHeaderResolver()
+                    .resolve(key) : null;
+            if (headers != null) {
+              for (Map.Entry<String, Object> header : headers.entrySet()) {
+                assertEquals(template + " on " + key, header.getValue(),
+                    received.get(template).get(header.getKey()));
+              }
+            }
+          }
+        }
+      }
+    } finally {
+      router.stop();
+    }
+  }
+}
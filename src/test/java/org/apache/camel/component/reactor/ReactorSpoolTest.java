@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.util.FileUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorSpoolTest extends ReactorBaseTestSupport {
+
+  private static final int MAX_WAIT = 10;
+  private static final File DIRECTORY = new File("target/spool");
+
+  protected String dispatcher = "?dispatcher=workQueue&poolSize=1";
+  protected String consumer = "reactor:uri:/spool/{name}" + dispatcher;
+  protected String spooling = "reactor:uri:/spool/burst" + dispatcher
+      + "&maxPending=2&overflowPolicy=spool&spoolDirectory=target/spool&segmentSize=1024";
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    FileUtil.removeDir(DIRECTORY);
+    super.setUp();
+  }
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from(consumer).process(new Processor() {
+          @Override
+          public void process(Exchange exchange) throws Exception {
+            release.await(MAX_WAIT, TimeUnit.SECONDS);
+          }
+        }).to("mock:spool");
+      }
+    };
+  }
+
+  @Test
+  public void testSegmentLogRotatesAndReopens() throws Exception {
+    ReactorSegmentLog log = new ReactorSegmentLog(DIRECTORY, "log", 64);
+    for (int i = 0; i < 10; i++) {
+      log.append(("record " + i).getBytes("UTF-8"));
+    }
+    assertTrue(log.getSegmentCount() > 1);
+    log.close();
+
+    log = new ReactorSegmentLog(DIRECTORY, "log", 64);
+    log.append("record 10".getBytes("UTF-8"));
+    for (int i = 0; i <= 10; i++) {
+      assertEquals("record " + i, new String(log.read(), "UTF-8"));
+    }
+    assertNull(log.read());
+    assertTrue(log.isRead());
+
+    log.deleteBefore(log.getReadSegment());
+    assertEquals(1, log.getSegmentCount());
+    log.delete();
+  }
+
+  @Test
+  public void testBurstSpooledAndReplayedInOrder() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:spool");
+    mock.expectedBodiesReceived(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+    ReactorEndpoint endpoint = context().getEndpoint(spooling, ReactorEndpoint.class);
+    for (int i = 1; i <= 10; i++) {
+      template.sendBody(endpoint, i);
+    }
+    assertEquals(2, endpoint.getPendingCount());
+    assertEquals(8, endpoint.getSpooledCount());
+    assertEquals(0, endpoint.getWaitingCount());
+    // not to delete the segments of the same endpoint in another context
+    for (String file : DIRECTORY.list()) {
+      assertTrue(file, file.startsWith(context().getName() + "-"));
+    }
+
+    release.countDown();
+    assertMockEndpointsSatisfied(MAX_WAIT, TimeUnit.SECONDS);
+    assertEquals(0, endpoint.getSpooledCount());
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Matteo Massimo Calabro'
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.apache.camel.component.reactor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * @author mmcalabro
+ */
+@RunWith(JUnit4.class)
+public class ReactorTransferExchangeTest extends ReactorBaseTestSupport {
+
+  protected String snapshot =
+      "reactor:uri:/transfer/snapshot?dispatcher=sync&transferExchange=true&transferMode=snapshot";
+  protected String noProperties = snapshot.replace("/snapshot?", "/noProperties?")
+      + "&includeAllProperties=false";
+
+  @Override
+  protected RouteBuilder createRouteBuilder() throws Exception {
+    return new RouteBuilder() {
+      @Override
+      public void configure() throws Exception {
+        from("direct:snapshot").setProperty("trace", constant("abc"))
+            .setProperty(Exchange.CHARSET_NAME, constant("ISO-8859-1")).to(snapshot);
+        from("direct:noProperties").setProperty("trace", constant("abc")).to(noProperties);
+        from(snapshot).to("mock:snapshot");
+        from(noProperties).to("mock:noProperties");
+      }
+    };
+  }
+
+  @Test
+  public void testSnapshotCarriesHeadersAndProperties() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:snapshot");
+    mock.expectedBodiesReceived("hello");
+    mock.expectedHeaderReceived("foo", "bar");
+    mock.expectedPropertyReceived("trace", "abc");
+    mock.message(0).property(Exchange.CHARSET_NAME).isNull();
+
+    template.sendBodyAndHeader("direct:snapshot", "hello", "foo", "bar");
+
+    assertMockEndpointsSatisfied();
+  }
+
+  @Test
+  public void testSnapshotWithoutProperties() throws Exception {
+    MockEndpoint mock = getMockEndpoint("mock:noProperties");
+    mock.expectedBodiesReceived("hello");
+    mock.expectedHeaderReceived("foo", "bar");
+    mock.message(0).property("trace").isNull();
+
+    template.sendBodyAndHeader("direct:noProperties", "hello", "foo", "bar");
+
+    assertMockEndpointsSatisfied();
+  }
+}